@@ -0,0 +1,151 @@
+package org.example.utils;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Outil de build (exec-maven-plugin, phase process-classes) : génère les déclinaisons des images
+ * produit aux tailles réellement affichées (carte, détail, suggestion, panier) et l'index qui les décrit.
+ * Usage : RenditionGenerator &lt;dossier source&gt; &lt;dossier cible&gt; &lt;qualité JPEG&gt; &lt;nom=LxH&gt;...
+ * Compilé à part (src/build/java) : il n'est jamais embarqué dans le jar de la borne.
+ * Une déclinaison n'est régénérée que si son image source (SHA-256) ou la qualité JPEG ont changé
+ * depuis l'index précédent ; la taille fait partie de son nom.
+ */
+public class RenditionGenerator {
+    // Même nom que celui lu par ImagePipeline à l'exécution
+    static final String INDEX_FILE = "renditions.properties";
+    // Clé de l'index mémorisant la qualité JPEG des déclinaisons (sans '@' : ignorée à l'exécution)
+    static final String QUALITY_KEY = "quality";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.err.println("Usage : RenditionGenerator <source> <cible> <qualite> <nom=LxH>...");
+            System.exit(2);
+        }
+        Path sourceDir = Paths.get(args[0]);
+        Path targetDir = Paths.get(args[1]);
+        float quality = Float.parseFloat(args[2]);
+        List<String[]> sizes = new ArrayList<>();
+        for (int i = 3; i < args.length; i++) {
+            String[] nameAndSize = args[i].split("=");
+            String[] dims = nameAndSize[1].split("x");
+            sizes.add(new String[]{nameAndSize[0], dims[0], dims[1]});
+        }
+
+        Files.createDirectories(targetDir);
+        Path indexFile = targetDir.resolve(INDEX_FILE);
+        Properties previous = new Properties();
+        if (Files.exists(indexFile)) {
+            try (Reader in = Files.newBufferedReader(indexFile)) {
+                previous.load(in);
+            }
+        }
+        // Qualité changée : toutes les déclinaisons sont à refaire
+        boolean sameQuality = Float.toString(quality).equals(previous.getProperty(QUALITY_KEY));
+        TreeMap<String, String> index = new TreeMap<>();
+        index.put(QUALITY_KEY, Float.toString(quality));
+        int generated = 0;
+        try (DirectoryStream<Path> sources = Files.newDirectoryStream(sourceDir, "*.{jpg,jpeg,png}")) {
+            for (Path source : sources) {
+                String fileName = source.getFileName().toString();
+                String baseName = fileName.substring(0, fileName.lastIndexOf('.'));
+                String hash = sha256(source);
+                boolean sameSource = sameQuality && hash.equals(previous.getProperty("sha256." + fileName));
+                BufferedImage original = null;
+                for (String[] size : sizes) {
+                    int width = Integer.parseInt(size[1]);
+                    int height = Integer.parseInt(size[2]);
+                    String renditionName = baseName + "-" + width + "x" + height + ".jpg";
+                    Path rendition = targetDir.resolve(renditionName);
+                    String key = fileName + "@" + width + "x" + height;
+                    if (!sameSource || !renditionName.equals(previous.getProperty(key)) || !Files.exists(rendition)) {
+                        if (original == null) original = ImageIO.read(source.toFile());
+                        if (original == null) break; // format non lisible : l'original reste utilisé
+                        writeJpeg(resize(original, width, height), rendition, quality);
+                        generated++;
+                    }
+                    index.put(key, renditionName);
+                }
+                index.put("sha256." + fileName, hash);
+            }
+        }
+
+        // Properties triées pour un index reproductible d'un build à l'autre
+        StringBuilder content = new StringBuilder("# Genere par RenditionGenerator, ne pas modifier\n");
+        index.forEach((key, value) -> content.append(key).append('=').append(value).append('\n'));
+        if (!Files.exists(indexFile) || !Files.readString(indexFile).equals(content.toString())) {
+            Files.writeString(indexFile, content);
+        }
+        System.out.println("Declinaisons d'images : " + generated + " generee(s), " + index.size() + " entree(s) dans l'index");
+    }
+
+    /** Réduction dans la boîte LxH en conservant le ratio, comme ImageView avec preserveRatio. */
+    static BufferedImage resize(BufferedImage source, int boxWidth, int boxHeight) {
+        double scale = Math.min(1.0, Math.min((double) boxWidth / source.getWidth(), (double) boxHeight / source.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        // Réductions successives par moitié : bien meilleur rendu qu'un seul passage bilinéaire
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage step = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = step.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(current, 0, 0, width, height, null);
+            g.dispose();
+            current = step;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private static void writeJpeg(BufferedImage image, Path target, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(quality);
+        param.setProgressiveMode(ImageWriteParam.MODE_DISABLED);
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp);
+             ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    static String sha256(Path file) throws IOException {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(file)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
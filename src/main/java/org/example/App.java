@@ -5,6 +5,11 @@ import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
+import org.example.services.ApiService;
+import org.example.services.CatalogCache;
+import org.example.services.CoOccurrenceRecommender;
+import org.example.services.OrderOutbox;
+import org.example.utils.DecodedImageStore;
 
 import java.io.IOException;
 
@@ -14,12 +19,29 @@ public class App extends Application {
 
     @Override
     public void start(Stage stage) throws IOException {
+        // Catalogue relu depuis le disque avant tout appel réseau, puis rafraîchi en arrière-plan
+        CatalogCache.getInstance().warmUp();
+        // Relance l'envoi des commandes restées en attente lors de la session précédente
+        OrderOutbox.getInstance();
+        // Modèle de recommandations appris lors des sessions précédentes (relu en tâche de fond)
+        CoOccurrenceRecommender.getInstance();
+        // Images déjà décodées projetées en mémoire (reconstruites en tâche de fond si les sources ont changé)
+        DecodedImageStore.getInstance().openOrRebuild();
         scene = new Scene(loadFXML("main"), 1024, 768);
         stage.setScene(scene);
         stage.setTitle("Borne de commande - Restaurant Asiatique");
         stage.show();
     }
 
+    @Override
+    public void stop() {
+        System.err.println(CatalogCache.getInstance().describeStats());
+        // Libère le pool de connexions HTTP partagé
+        OrderOutbox.shutdown();
+        CoOccurrenceRecommender.shutdown();
+        ApiService.shutdown();
+    }
+
     public static void setRoot(String fxml) throws IOException {
         scene.setRoot(loadFXML(fxml));
     }
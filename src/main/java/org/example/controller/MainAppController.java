@@ -1,21 +1,35 @@
 package org.example.controller;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.Node;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.layout.*;
+import org.example.model.Catalog;
 import org.example.model.Category;
 import org.example.model.Product;
 import org.example.services.ApiService;
 import org.example.services.CartService;
+import org.example.services.CatalogCache;
+import org.example.services.OrderOutbox;
 import org.example.utils.InterfaceTools;
+import org.example.utils.ThumbnailAtlas;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * Contrôleur Principal (Point d'entrée).
@@ -25,8 +39,8 @@ public class MainAppController {
 
     @FXML private BorderPane mainLayout;
 
-    private final ApiService apiService = new ApiService();
     private final CartService cartService = CartService.getInstance();
+    private final CatalogCache catalogCache = CatalogCache.getInstance();
 
     // Sous-Contrôleurs délégués
     private final SmartSuggestionPopup suggestionPopup;
@@ -37,11 +51,24 @@ public class MainAppController {
     private ResourceBundle bundle;
     private Locale currentLocale = new Locale("fr");
 
+    // Écrans de menu déjà construits, par (catégorie, langue, version du catalogue), du plus ancien au plus récent
+    private static final int MAX_CACHED_MENU_SCREENS = 16;
+    private final Map<String, MenuScreen> menuScreens = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, MenuScreen> eldest) {
+            return size() > MAX_CACHED_MENU_SCREENS;
+        }
+    };
+    private long menuScreensVersion = -1;
+
     public MainAppController() {
         // Initialisation des contrôleurs spécialisés (Separation of Concerns)
-        this.suggestionPopup = new SmartSuggestionPopup(apiService, cartService);
+        this.suggestionPopup = new SmartSuggestionPopup(catalogCache, cartService);
         this.menuDisplayController = new MenuDisplayController(cartService, this, suggestionPopup);
-        this.shoppingCartController = new ShoppingCartController(cartService, apiService, this);
+        this.shoppingCartController = new ShoppingCartController(cartService, OrderOutbox.getInstance(), this);
+        // Badge du panier tenu à jour sur les écrans de menu mémorisés, sans les reconstruire
+        cartService.addListener((changes, cart) -> menuScreens.values().forEach(screen -> screen.setCartTotal(cart.getTotal())),
+                Platform::runLater);
     }
 
     /** Méthode d'initialisation JavaFX. */
@@ -131,45 +158,36 @@ public class MainAppController {
     }
 
     // --- 2. MENU ---
-    /** Affiche l'écran principal du menu (catégories et produits). */
+    /** Affiche l'écran principal du menu (catégories et produits), chargé en arrière-plan. */
     public void showMenuScreen() {
+        // Catalogue complet chargé une fois puis indexé : un changement d'onglet ne fait aucun appel réseau
+        CompletableFuture<Catalog> catalogFuture = catalogCache.getCatalog();
+
+        // Écran déjà construit pour cette catégorie, cette langue et cette version : simple échange de noeud
+        if (currentCategory != null && catalogFuture.isDone() && !catalogFuture.isCompletedExceptionally()) {
+            MenuScreen cached = menuScreens.get(menuScreenKey(catalogFuture.join()));
+            if (cached != null) {
+                cached.refresh(currentCategory.getId());
+                mainLayout.setCenter(cached.layout);
+                return;
+            }
+        }
+
         BorderPane menuLayout = new BorderPane(); menuLayout.setPadding(new Insets(20, 40, 20, 40));
         HBox header = new HBox(30); header.setAlignment(Pos.CENTER_LEFT); header.setPadding(new Insets(0, 0, 20, 0));
         Label lblMenu = new Label(bundle.getString("menu.title")); lblMenu.getStyleClass().add("menu-title-orange");
         HBox tabs = new HBox(10); tabs.setAlignment(Pos.CENTER); HBox.setHgrow(tabs, Priority.ALWAYS);
 
-        List<Category> categories = apiService.getCategories();
-        if (categories.isEmpty()) { showErrorScreen("Error / Erreur connexion"); return; }
-        if (currentCategory == null) currentCategory = categories.get(0);
-
-        for (Category cat : categories) {
-            Button tab = new Button(getTranslateCat(cat));
-            tab.getStyleClass().add("tab-button");
-            if (currentCategory.getId().equals(cat.getId())) tab.getStyleClass().add("tab-active");
-            tab.setOnAction(e -> { currentCategory = cat; showMenuScreen(); });
-            tabs.getChildren().add(tab);
-        }
-
         Button btnCartTop = new Button("🛒 " + String.format("%.2f €", cartService.getTotal()));
         btnCartTop.getStyleClass().add("btn-primary");
         btnCartTop.setOnAction(e -> showCartScreen());
         header.getChildren().addAll(lblMenu, tabs, btnCartTop);
         menuLayout.setTop(header);
 
-        List<Product> products = apiService.getProductsByCategory(currentCategory.getId());
-        if (products.isEmpty()) {
-            VBox noProductsBox = new VBox(20); noProductsBox.setAlignment(Pos.CENTER); noProductsBox.setPadding(new Insets(50));
-            Label noProductsLabel = new Label("Aucun produit."); noProductsLabel.setStyle("-fx-text-fill: white; -fx-font-size: 24px;");
-            noProductsBox.getChildren().add(noProductsLabel); menuLayout.setCenter(noProductsBox);
-        } else {
-            TilePane grid = new TilePane(); grid.setHgap(30); grid.setVgap(30); grid.setPrefColumns(2); grid.setAlignment(Pos.TOP_CENTER); grid.setPadding(new Insets(20));
-            for (Product product : products) {
-                // Délégation de la création graphique au MenuDisplayController
-                grid.getChildren().add(menuDisplayController.createProductCard(product, bundle));
-            }
-            ScrollPane scroll = new ScrollPane(grid); scroll.setFitToWidth(true); scroll.setStyle("-fx-background: transparent; -fx-background-color: transparent;");
-            menuLayout.setCenter(scroll);
-        }
+        // État de chargement affiché tant que le backend n'a pas répondu
+        VBox loadingBox = new VBox(20); loadingBox.setAlignment(Pos.CENTER); loadingBox.setPadding(new Insets(50));
+        Label loadingLabel = new Label(bundle.getString("menu.loading")); loadingLabel.setStyle("-fx-text-fill: white; -fx-font-size: 24px;");
+        loadingBox.getChildren().add(loadingLabel); menuLayout.setCenter(loadingBox);
 
         HBox footer = new HBox(20); footer.setPadding(new Insets(20, 0, 0, 0)); footer.setAlignment(Pos.CENTER_LEFT);
         Button btnAccueil = new Button(bundle.getString("menu.back")); btnAccueil.getStyleClass().add("btn-secondary"); btnAccueil.setOnAction(e -> showHomeScreen());
@@ -178,6 +196,127 @@ public class MainAppController {
         footer.getChildren().addAll(btnAccueil, spacer, btnPanier);
         menuLayout.setBottom(footer);
         mainLayout.setCenter(menuLayout);
+
+        Consumer<Catalog> render = catalog -> {
+            // L'utilisateur a quitté l'écran entre-temps : résultat ignoré
+            if (mainLayout.getCenter() != menuLayout) return;
+            List<Category> categories = catalog.getCategories();
+            if (categories.isEmpty()) { showErrorScreen("Error / Erreur connexion"); return; }
+            if (currentCategory == null) currentCategory = categories.get(0);
+            if (ThumbnailAtlas.ENABLED) {
+                // Vignettes regroupées dans l'atlas ; seules celles des nouveaux produits sont copiées
+                ThumbnailAtlas.getInstance().update(catalog.getVersion(),
+                        catalog.getProducts().stream().map(Product::getImageUrl).collect(Collectors.toList()));
+            }
+            List<Product> products = catalog.getProductsByCategory(currentCategory.getId());
+
+            Map<Long, Button> tabsByCategory = new HashMap<>();
+            for (Category cat : categories) {
+                Button tab = new Button(getTranslateCat(cat));
+                tab.getStyleClass().add("tab-button");
+                if (currentCategory.getId().equals(cat.getId())) tab.getStyleClass().add("tab-active");
+                tab.setOnAction(e -> { currentCategory = cat; showMenuScreen(); });
+                tabs.getChildren().add(tab);
+                tabsByCategory.put(cat.getId(), tab);
+            }
+
+            if (products.isEmpty()) {
+                VBox noProductsBox = new VBox(20); noProductsBox.setAlignment(Pos.CENTER); noProductsBox.setPadding(new Insets(50));
+                Label noProductsLabel = new Label("Aucun produit."); noProductsLabel.setStyle("-fx-text-fill: white; -fx-font-size: 24px;");
+                noProductsBox.getChildren().add(noProductsLabel); menuLayout.setCenter(noProductsBox);
+            } else {
+                // Délégation de la création graphique au MenuDisplayController (grille virtualisée pour les grands menus)
+                // Écran quitté avant la fin de la construction progressive : il ne doit pas être réutilisé incomplet
+                menuLayout.setCenter(menuDisplayController.createProductGrid(products, bundle,
+                        () -> menuScreens.values().removeIf(screen -> screen.layout == menuLayout)));
+            }
+
+            // Une nouvelle version du catalogue rend tous les écrans mémorisés obsolètes
+            if (catalog.getVersion() != menuScreensVersion) {
+                menuScreens.clear();
+                menuScreensVersion = catalog.getVersion();
+            }
+            MenuScreen screen = new MenuScreen(menuLayout, tabsByCategory, btnCartTop);
+            // Panier modifié pendant le chargement : le badge n'était pas encore suivi
+            screen.setCartTotal(cartService.getTotal());
+            menuScreens.put(menuScreenKey(catalog), screen);
+        };
+        // Données déjà en cache : rendu immédiat, sans attendre le prochain pulse
+        if (catalogFuture.isDone()) {
+            render.accept(catalogFuture.join());
+        } else {
+            // Premier lancement sans copie locale : cartes affichées au fil du décodage de /products
+            showProductsWhileLoading(menuLayout, loadingBox);
+            // Délai total borné : au-delà, le client voit l'écran d'erreur au lieu d'un chargement sans fin
+            catalogFuture.orTimeout(ApiService.UI_ACTION_DEADLINE_MS, TimeUnit.MILLISECONDS)
+                    .whenCompleteAsync((catalog, error) -> {
+                        if (error == null) render.accept(catalog);
+                        else if (mainLayout.getCenter() == menuLayout) showErrorScreen("Error / Erreur connexion");
+                    }, Platform::runLater);
+        }
+    }
+
+    /**
+     * Pendant le premier chargement du catalogue (lu en flux), ajoute à une grille provisoire les
+     * cartes de la catégorie courante dès que leurs produits sont décodés. La grille définitive
+     * (render) la remplace dès que le catalogue complet est indexé.
+     */
+    private void showProductsWhileLoading(BorderPane menuLayout, Node loadingBox) {
+        CompletableFuture<List<Category>> categoriesFuture = catalogCache.getCategories();
+        TilePane grid = new TilePane(); grid.setHgap(30); grid.setVgap(30); grid.setPrefColumns(2); grid.setAlignment(Pos.TOP_CENTER); grid.setPadding(new Insets(20));
+        ScrollPane scroll = new ScrollPane(grid); scroll.setFitToWidth(true); scroll.setStyle("-fx-background: transparent; -fx-background-color: transparent;");
+        List<Product> received = new ArrayList<>();
+        int[] examined = {0};
+        Runnable appendCards = () -> {
+            // Écran quitté, ou grille définitive déjà affichée
+            if (mainLayout.getCenter() != menuLayout || (menuLayout.getCenter() != loadingBox && menuLayout.getCenter() != scroll)) return;
+            Long categoryId = currentCategory != null ? currentCategory.getId() : firstCategoryId(categoriesFuture);
+            if (categoryId == null) return; // catégories pas encore reçues : les produits attendent
+            for (; examined[0] < received.size(); examined[0]++) {
+                Product product = received.get(examined[0]);
+                if (categoryId.equals(product.getCategoryId())) grid.getChildren().add(menuDisplayController.createProductCard(product, bundle));
+            }
+            if (!grid.getChildren().isEmpty() && menuLayout.getCenter() == loadingBox) menuLayout.setCenter(scroll);
+        };
+        boolean streaming = catalogCache.followFirstLoad(batch -> Platform.runLater(() -> {
+            received.addAll(batch);
+            appendCards.run();
+        }));
+        if (streaming) categoriesFuture.thenRunAsync(appendCards, Platform::runLater);
+    }
+
+    private static Long firstCategoryId(CompletableFuture<List<Category>> categoriesFuture) {
+        if (!categoriesFuture.isDone() || categoriesFuture.isCompletedExceptionally()) return null;
+        List<Category> categories = categoriesFuture.join();
+        return categories.isEmpty() ? null : categories.get(0).getId();
+    }
+
+    private String menuScreenKey(Catalog catalog) {
+        return currentCategory.getId() + "|" + currentLocale + "|" + catalog.getVersion();
+    }
+
+    /** Écran de menu mémorisé et les seuls noeuds à mettre à jour quand on y revient. */
+    private static final class MenuScreen {
+        final BorderPane layout;
+        final Map<Long, Button> tabsByCategory;
+        final Button btnCartTop;
+
+        MenuScreen(BorderPane layout, Map<Long, Button> tabsByCategory, Button btnCartTop) {
+            this.layout = layout;
+            this.tabsByCategory = tabsByCategory;
+            this.btnCartTop = btnCartTop;
+        }
+
+        void refresh(Long categoryId) {
+            tabsByCategory.forEach((id, tab) -> {
+                tab.getStyleClass().remove("tab-active");
+                if (id.equals(categoryId)) tab.getStyleClass().add("tab-active");
+            });
+        }
+
+        void setCartTotal(double cartTotal) {
+            btnCartTop.setText("🛒 " + String.format("%.2f €", cartTotal));
+        }
     }
 
     /** Affiche l'écran du panier via le CartController. */
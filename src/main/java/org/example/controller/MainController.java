@@ -17,7 +17,9 @@ import org.example.services.CartService;
 import org.example.model.Category;
 import org.example.model.Product;
 import org.example.services.ApiService;
+import org.example.services.OrderOutbox;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -633,13 +635,13 @@ public class MainController {
                         orderItems
                 );
 
-                int orderId = apiService.createOrder(newOrder);
-
-                if (orderId > 0) {
-                    System.out.println("✅ Commande envoyée avec succès : ID " + orderId);
-                    showConfirmationScreen(orderId);
-                } else {
-                    showAlert("Erreur lors de l'envoi de la commande. Stock peut-être insuffisant.");
+                // Même chemin que l'écran principal : boîte d'envoi locale, envoi en arrière-plan
+                try {
+                    OrderOutbox.PendingOrder pendingOrder = OrderOutbox.getInstance().submit(newOrder);
+                    showConfirmationScreen(pendingOrder.getProvisionalNumber());
+                } catch (IOException ex) {
+                    ex.printStackTrace();
+                    showAlert("Erreur lors de l'envoi de la commande.");
                 }
             });
 
@@ -689,7 +691,7 @@ public class MainController {
                 "-fx-background-radius: 17; -fx-font-weight: bold; -fx-font-size: 16px;");
         minusBtn.setOnAction(e -> {
             if (item.getQuantity() > 1) {
-                item.setQuantity(item.getQuantity() - 1);
+                cartService.updateQuantity(index, item.getQuantity() - 1);
                 showCartScreen();
             } else {
                 cartService.removeItem(index);
@@ -704,7 +706,7 @@ public class MainController {
         plusBtn.setStyle("-fx-background-color: #e2e8f0; -fx-min-width: 35; -fx-min-height: 35; " +
                 "-fx-background-radius: 17; -fx-font-weight: bold; -fx-font-size: 16px;");
         plusBtn.setOnAction(e -> {
-            item.setQuantity(item.getQuantity() + 1);
+            cartService.updateQuantity(index, item.getQuantity() + 1);
             showCartScreen();
         });
 
@@ -729,7 +731,7 @@ public class MainController {
     }
 
     // --- 5. ÉCRAN DE CONFIRMATION ---
-    private void showConfirmationScreen(int orderId) {
+    private void showConfirmationScreen(String orderNumberText) {
         VBox root = new VBox(30);
         root.setAlignment(Pos.CENTER);
 
@@ -742,7 +744,7 @@ public class MainController {
         Label message = new Label(bundle.getString("confirm.msg"));
         message.getStyleClass().add("subtitle");
 
-        Label orderNumber = new Label("#" + orderId);
+        Label orderNumber = new Label("#" + orderNumberText);
         orderNumber.setStyle("-fx-font-size: 80px; -fx-font-weight: bold; -fx-text-fill: #d97706;");
 
         Label waitMessage = new Label(bundle.getString("confirm.wait"));
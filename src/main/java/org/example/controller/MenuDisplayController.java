@@ -2,7 +2,9 @@ package org.example.controller;
 
 import javafx.animation.PauseTransition;
 import javafx.geometry.Insets;
+import javafx.collections.FXCollections;
 import javafx.geometry.Pos;
+import javafx.scene.Node;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.stage.Stage;
@@ -10,6 +12,7 @@ import javafx.util.Duration;
 import org.example.model.Product;
 import org.example.services.CartService;
 import org.example.utils.InterfaceTools;
+import org.example.utils.UiWorkScheduler;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -20,6 +23,13 @@ import java.util.ResourceBundle;
  */
 public class MenuDisplayController {
 
+    // Nombre de produits à partir duquel la grille est virtualisée (-Dui.grid.virtualize.threshold)
+    private static final int VIRTUALIZE_THRESHOLD = Integer.getInteger("ui.grid.virtualize.threshold", 40);
+    // Hauteur fixe d'une rangée virtualisée : carte (vignette 140 + marges) et espacement vertical
+    private static final double VIRTUAL_CARD_HEIGHT = 190;
+    private static final double VIRTUAL_ROW_HEIGHT = VIRTUAL_CARD_HEIGHT + 30;
+    private static final int CARDS_PER_ROW = 2;
+
     private final CartService cartService;
     private final MainAppController mainController;
     private final SmartSuggestionPopup suggestionPopup;
@@ -32,53 +42,148 @@ public class MenuDisplayController {
 
     /** Crée une carte produit pour la grille du menu. */
     public HBox createProductCard(Product product, ResourceBundle bundle) {
-        HBox card = new HBox(20);
-        card.getStyleClass().add("product-card");
-        card.setPrefWidth(550);
-        card.setAlignment(Pos.CENTER_LEFT);
+        ProductCard card = new ProductCard();
+        card.bind(product, bundle);
+        return card;
+    }
 
-        card.getChildren().add(InterfaceTools.createProductImageNode(product.getImageUrl(), 140, 140));
+    /**
+     * Grille du menu sur deux colonnes. Au-delà de VIRTUALIZE_THRESHOLD produits, une ListView
+     * de rangées de deux cartes remplace le TilePane : seules les rangées visibles existent en
+     * tant que noeuds, et leurs cartes sont réaffectées (bind) au défilement au lieu d'être recréées.
+     * Dans le TilePane, les cartes au-delà de la première rangée sont construites par tranches
+     * (UiWorkScheduler) ; onIncomplete est appelé si l'écran est quitté avant la fin.
+     */
+    public Node createProductGrid(List<Product> products, ResourceBundle bundle, Runnable onIncomplete) {
+        if (products.size() <= VIRTUALIZE_THRESHOLD) {
+            TilePane grid = new TilePane(); grid.setHgap(30); grid.setVgap(30); grid.setPrefColumns(2); grid.setAlignment(Pos.TOP_CENTER); grid.setPadding(new Insets(20));
+            // Première rangée construite tout de suite (visible dès la première image), le reste par tranches
+            int immediate = Math.min(products.size(), CARDS_PER_ROW);
+            List<Runnable> remaining = new ArrayList<>(products.size() - immediate);
+            for (int i = 0; i < products.size(); i++) {
+                Product product = products.get(i);
+                if (i < immediate) grid.getChildren().add(createProductCard(product, bundle));
+                else remaining.add(() -> grid.getChildren().add(createProductCard(product, bundle)));
+            }
+            UiWorkScheduler.getInstance().submit(grid, remaining, onIncomplete);
+            ScrollPane scroll = new ScrollPane(grid); scroll.setFitToWidth(true); scroll.setStyle("-fx-background: transparent; -fx-background-color: transparent;");
+            return scroll;
+        }
 
-        VBox info = new VBox(10);
-        HBox.setHgrow(info, Priority.ALWAYS);
-        info.setAlignment(Pos.CENTER_LEFT);
+        List<Product[]> rows = new ArrayList<>((products.size() + 1) / 2);
+        for (int i = 0; i < products.size(); i += 2) {
+            rows.add(new Product[]{products.get(i), i + 1 < products.size() ? products.get(i + 1) : null});
+        }
+        ListView<Product[]> list = new ListView<>(FXCollections.observableArrayList(rows));
+        list.setFixedCellSize(VIRTUAL_ROW_HEIGHT);
+        list.setFocusTraversable(false);
+        list.setStyle("-fx-background-color: transparent; -fx-control-inner-background: transparent; -fx-padding: 20;");
+        list.setCellFactory(view -> new ProductRowCell(bundle));
+        return list;
+    }
 
-        Label name = new Label(mainController.getTranslateName(product));
-        name.getStyleClass().add("h2");
-        name.setStyle("-fx-font-size: 24px;");
+    /** Rangée recyclée de la grille virtualisée : deux cartes créées une fois, réaffectées à chaque défilement. */
+    private class ProductRowCell extends ListCell<Product[]> {
+        private final ResourceBundle bundle;
+        private final ProductCard left = new ProductCard();
+        private final ProductCard right = new ProductCard();
+        private final HBox row = new HBox(30, left, right);
+
+        ProductRowCell(ResourceBundle bundle) {
+            this.bundle = bundle;
+            row.setAlignment(Pos.TOP_CENTER);
+            left.setMaxHeight(VIRTUAL_CARD_HEIGHT);
+            right.setMaxHeight(VIRTUAL_CARD_HEIGHT);
+            // Style en ligne : prioritaire sur les états sélectionné/survolé de la ListView
+            setStyle("-fx-background-color: transparent; -fx-padding: 0;");
+        }
 
-        Label desc = new Label(mainController.getTranslateDesc(product));
-        desc.setWrapText(true);
-        desc.setStyle("-fx-text-fill: #64748b;");
+        @Override
+        protected void updateItem(Product[] item, boolean empty) {
+            super.updateItem(item, empty);
+            if (empty || item == null) {
+                setGraphic(null);
+                return;
+            }
+            left.bind(item[0], bundle);
+            if (item[1] != null) right.bind(item[1], bundle);
+            // Rangée incomplète : la place est conservée pour garder l'alignement des colonnes
+            right.setVisible(item[1] != null);
+            setGraphic(row);
+        }
+    }
 
-        HBox bottomRow = new HBox(20);
-        bottomRow.setAlignment(Pos.CENTER_LEFT);
+    /** Carte produit dont les noeuds sont créés une seule fois ; bind() l'affecte à un produit. */
+    private class ProductCard extends HBox {
+        private final StackPane imageSlot = new StackPane();
+        private final Label name = new Label();
+        private final Label desc = new Label();
+        private final Label price = new Label();
+        private final Button btnAdd = new Button();
+        private Product product;
+        private ResourceBundle currentBundle;
 
-        Label price = new Label(String.format("%.2f €", product.getPrice()));
-        price.getStyleClass().add("price-text");
+        ProductCard() {
+            super(20);
+            getStyleClass().add("product-card");
+            setPrefWidth(550);
+            setAlignment(Pos.CENTER_LEFT);
+            imageSlot.setMinSize(140, 140);
+            imageSlot.setPrefSize(140, 140);
 
-        Region spacer = new Region();
-        HBox.setHgrow(spacer, Priority.ALWAYS);
+            VBox info = new VBox(10);
+            HBox.setHgrow(info, Priority.ALWAYS);
+            info.setAlignment(Pos.CENTER_LEFT);
 
-        Button btnAdd = new Button(bundle.getString("menu.add"));
-        btnAdd.getStyleClass().add("btn-add-product");
+            name.getStyleClass().add("h2");
+            name.setStyle("-fx-font-size: 24px;");
 
-        if (!product.isAvailable()) {
-            btnAdd.setText("N/A");
-            btnAdd.setDisable(true);
-            btnAdd.setStyle("-fx-background-color: #fee2e2; -fx-text-fill: #dc2626; -fx-opacity: 1;");
-        } else {
-            btnAdd.setOnAction(e -> showDetailScreen(product, bundle));
+            desc.setWrapText(true);
+            desc.setStyle("-fx-text-fill: #64748b;");
+
+            HBox bottomRow = new HBox(20);
+            bottomRow.setAlignment(Pos.CENTER_LEFT);
+
+            price.getStyleClass().add("price-text");
+
+            Region spacer = new Region();
+            HBox.setHgrow(spacer, Priority.ALWAYS);
+
+            btnAdd.getStyleClass().add("btn-add-product");
+            btnAdd.setOnAction(e -> showDetailScreen(product, currentBundle));
+            bottomRow.getChildren().addAll(price, spacer, btnAdd);
+
+            info.getChildren().addAll(name, desc, bottomRow);
+            getChildren().addAll(imageSlot, info);
         }
-        bottomRow.getChildren().addAll(price, spacer, btnAdd);
 
-        info.getChildren().addAll(name, desc, bottomRow);
-        card.getChildren().addAll(info);
-        return card;
+        void bind(Product product, ResourceBundle bundle) {
+            if (product == this.product && bundle == currentBundle) return;
+            this.product = product;
+            this.currentBundle = bundle;
+
+            imageSlot.getChildren().setAll(InterfaceTools.createProductImageNode(product.getImageUrl(), 140, 140));
+            name.setText(mainController.getTranslateName(product));
+            desc.setText(mainController.getTranslateDesc(product));
+            price.setText(String.format("%.2f €", product.getPrice()));
+
+            if (!product.isAvailable()) {
+                btnAdd.setText("N/A");
+                btnAdd.setDisable(true);
+                btnAdd.setStyle("-fx-background-color: #fee2e2; -fx-text-fill: #dc2626; -fx-opacity: 1;");
+            } else {
+                btnAdd.setText(bundle.getString("menu.add"));
+                btnAdd.setDisable(false);
+                btnAdd.setStyle(null);
+            }
+        }
     }
 
     /** Affiche la page de détail d'un produit avec les options conditionnelles. */
     public void showDetailScreen(Product product, ResourceBundle bundle) {
+        // Pour un plat, les suggestions sont calculées en tâche de fond pendant que le client choisit ses options
+        suggestionPopup.prefetch(product);
+
         BorderPane detailLayout = new BorderPane();
         detailLayout.setPadding(new Insets(20));
         HBox top = new HBox();
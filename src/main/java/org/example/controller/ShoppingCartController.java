@@ -1,14 +1,20 @@
 package org.example.controller;
 
+import javafx.application.Platform;
 import javafx.geometry.Insets;
+import javafx.collections.ObservableList;
 import javafx.geometry.Pos;
+import javafx.scene.Node;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import org.example.model.CartItem;
-import org.example.services.ApiService;
+import org.example.model.CartSnapshot;
 import org.example.services.CartService;
+import org.example.services.CoOccurrenceRecommender;
+import org.example.services.OrderOutbox;
 import org.example.utils.InterfaceTools;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.ResourceBundle;
@@ -19,13 +25,24 @@ import java.util.ResourceBundle;
 public class ShoppingCartController {
 
     private final CartService cartService;
-    private final ApiService apiService;
+    private final OrderOutbox orderOutbox;
     private final MainAppController mainController;
 
-    public ShoppingCartController(CartService cartService, ApiService apiService, MainAppController mainController) {
+    // Écran panier affiché : seuls ces noeuds sont mis à jour quand le panier change
+    private BorderPane shownLayout;
+    private ResourceBundle shownBundle;
+    private Node shownRoot;
+    private VBox shownItemsList;
+    private Label shownItemCount;
+    private Label shownTotalValue;
+    private long shownVersion;
+
+    public ShoppingCartController(CartService cartService, OrderOutbox orderOutbox, MainAppController mainController) {
         this.cartService = cartService;
-        this.apiService = apiService;
+        this.orderOutbox = orderOutbox;
         this.mainController = mainController;
+        // Changements regroupés et livrés sur le thread JavaFX (un appel par pulse au plus)
+        cartService.addListener(this::onCartChanged, Platform::runLater);
     }
 
     /** Affiche l'écran principal du panier (Liste, Total, Formulaire client). */
@@ -43,16 +60,16 @@ public class ShoppingCartController {
         Label title = new Label(bundle.getString("cart.title"));
         title.setStyle("-fx-font-size: 32px; -fx-font-weight: bold; -fx-text-fill: #1e293b;");
 
-        // Gestion pluriel "Article(s)"
-        int count = cartService.getItems().size();
-        String articleWord = bundle.getString("cart.article");
-        if (count > 1) { articleWord += "s"; }
+        // Un seul instantané pour tout l'écran : aucune copie de la liste par ligne affichée
+        CartSnapshot cart = cartService.getSnapshot();
 
-        Label itemCount = new Label(count + " " + articleWord);
+        Label itemCount = new Label(articleCountText(cart.getLineCount(), bundle));
         itemCount.setStyle("-fx-text-fill: #64748b; -fx-font-size: 18px; -fx-background-color: #f1f5f9; -fx-padding: 5 15; -fx-background-radius: 20;");
         header.getChildren().addAll(title, itemCount);
 
-        if (cartService.getItems().isEmpty()) {
+        VBox itemsList = null;
+        Label totalValue = null;
+        if (cart.isEmpty()) {
             // Affichage panier vide
             VBox emptyBox = new VBox(20);
             emptyBox.setAlignment(Pos.CENTER);
@@ -70,15 +87,15 @@ public class ShoppingCartController {
             cartContainer.getChildren().addAll(header, new Separator(), emptyBox);
         } else {
             // Liste des articles
-            VBox itemsList = new VBox(15);
+            itemsList = new VBox(15);
             ScrollPane listScroll = new ScrollPane(itemsList);
             listScroll.setFitToWidth(true);
             listScroll.setPrefHeight(400);
             listScroll.setStyle("-fx-background-color: transparent; -fx-background: transparent;");
             listScroll.setHbarPolicy(ScrollPane.ScrollBarPolicy.NEVER);
 
-            for (int i = 0; i < cartService.getItems().size(); i++) {
-                itemsList.getChildren().add(createCartItemRow(cartService.getItems().get(i), i, bundle));
+            for (CartItem item : cart.getItems()) {
+                itemsList.getChildren().add(new CartRow(item, bundle));
             }
 
             Separator separator = new Separator();
@@ -86,7 +103,7 @@ public class ShoppingCartController {
             totalBox.setAlignment(Pos.CENTER_RIGHT);
             Label totalLabel = new Label(bundle.getString("cart.total_pay"));
             totalLabel.setStyle("-fx-font-size: 18px; -fx-text-fill: #64748b;");
-            Label totalValue = new Label(String.format("%.2f €", cartService.getTotal()));
+            totalValue = new Label(String.format("%.2f €", cart.getTotal()));
             totalValue.setStyle("-fx-font-size: 36px; -fx-font-weight: bold; -fx-text-fill: #d97706;");
             totalBox.getChildren().addAll(totalLabel, totalValue);
 
@@ -113,11 +130,21 @@ public class ShoppingCartController {
             btnPay.setOnAction(e -> {
                 String clientName = txtClient.getText().trim();
                 if (clientName.isEmpty()) { InterfaceTools.showAlert("Veuillez saisir votre nom."); txtClient.setStyle("-fx-border-color: #dc2626; -fx-border-width: 2;"); return; }
+                // Commande construite depuis un seul instantané : lignes et total cohérents entre eux
+                CartSnapshot ordered = cartService.getSnapshot();
                 List<org.example.model.OrderItem> orderItems = new ArrayList<>();
-                for (CartItem ci : cartService.getItems()) { orderItems.add(new org.example.model.OrderItem(ci.getProduct().getId().intValue(), ci.getQuantity(), ci.getProduct().getPrice(), String.join(",", ci.getOptions()))); }
-                org.example.model.Order newOrder = new org.example.model.Order(clientName, cartService.getTotal(), orderItems);
-                int orderId = apiService.createOrder(newOrder);
-                if (orderId > 0) { showConfirmationScreen(orderId, bundle); } else { InterfaceTools.showAlert("Erreur lors de l'envoi."); }
+                for (CartItem ci : ordered.getItems()) { orderItems.add(new org.example.model.OrderItem(ci.getProduct().getId().intValue(), ci.getQuantity(), ci.getProduct().getPrice(), String.join(",", ci.getOptions()))); }
+                org.example.model.Order newOrder = new org.example.model.Order(clientName, ordered.getTotal(), orderItems);
+                // Commande écrite dans la boîte d'envoi locale : confirmation immédiate, envoi en arrière-plan
+                try {
+                    OrderOutbox.PendingOrder pendingOrder = orderOutbox.submit(newOrder);
+                    // Alimente les recommandations avec les produits commandés ensemble (apprentissage en tâche de fond)
+                    CoOccurrenceRecommender.getInstance().recordOrder(newOrder);
+                    showConfirmationScreen(pendingOrder, bundle);
+                } catch (IOException ex) {
+                    ex.printStackTrace();
+                    InterfaceTools.showAlert("Erreur lors de l'envoi.");
+                }
             });
 
             actions.getChildren().addAll(btnBack, btnPay);
@@ -130,53 +157,126 @@ public class ShoppingCartController {
         mainScroll.setFitToHeight(true);
         mainScroll.setStyle("-fx-background: transparent; -fx-background-color: transparent;");
         mainLayout.setCenter(mainScroll);
+
+        shownLayout = mainLayout;
+        shownBundle = bundle;
+        shownRoot = mainScroll;
+        shownItemsList = itemsList;
+        shownItemCount = itemCount;
+        shownTotalValue = totalValue;
+        shownVersion = cart.getVersion();
+    }
+
+    /**
+     * Applique les changements du panier à l'écran affiché, ligne par ligne : une quantité modifiée
+     * ne met à jour que sa ligne, le compteur et le total. L'écran n'est reconstruit que s'il passe
+     * de vide à non vide (ou l'inverse) ou si le panier a été vidé.
+     */
+    private void onCartChanged(List<CartService.CartChange> changes, CartSnapshot cart) {
+        if (shownRoot == null || shownRoot.getScene() == null || cart.getVersion() == shownVersion) return;
+        boolean rebuild = shownItemsList == null || cart.isEmpty();
+        for (CartService.CartChange change : changes) {
+            if (change.getType() == CartService.CartChange.Type.CLEARED) rebuild = true;
+        }
+        if (rebuild) {
+            showCartScreen(shownLayout, shownBundle);
+            return;
+        }
+
+        ObservableList<Node> rows = shownItemsList.getChildren();
+        for (CartService.CartChange change : changes) {
+            // Changement déjà pris en compte par la construction de l'écran
+            if (change.getVersion() <= shownVersion) continue;
+            switch (change.getType()) {
+                case LINE_ADDED:
+                    rows.add(change.getIndex(), new CartRow(change.getItem(), shownBundle));
+                    break;
+                case QUANTITY_CHANGED:
+                    ((CartRow) rows.get(change.getIndex())).update(change.getItem());
+                    break;
+                case LINE_REMOVED:
+                    rows.remove(change.getIndex());
+                    break;
+                default:
+                    break;
+            }
+        }
+        shownItemCount.setText(articleCountText(cart.getLineCount(), shownBundle));
+        shownTotalValue.setText(String.format("%.2f €", cart.getTotal()));
+        shownVersion = cart.getVersion();
+    }
+
+    /** Gestion pluriel "Article(s)". */
+    private static String articleCountText(int count, ResourceBundle bundle) {
+        String articleWord = bundle.getString("cart.article");
+        if (count > 1) { articleWord += "s"; }
+        return count + " " + articleWord;
     }
 
-    /** Crée une ligne pour un article (Image, Nom, Qté, Supprimer). */
-    private HBox createCartItemRow(CartItem item, int index, ResourceBundle bundle) {
-        HBox row = new HBox(20);
-        row.setPadding(new Insets(15));
-        row.setAlignment(Pos.CENTER_LEFT);
-        row.getStyleClass().add("cart-row");
-
-        row.getChildren().add(InterfaceTools.createProductImageNode(item.getProduct().getImageUrl(), 80, 80));
-
-        VBox productInfo = new VBox(5);
-        productInfo.setAlignment(Pos.CENTER_LEFT);
-        Label name = new Label(mainController.getTranslateName(item.getProduct()));
-        name.setStyle("-fx-font-weight: bold; -fx-font-size: 20px; -fx-text-fill: #1e293b;");
-        Label options = new Label(String.join(", ", item.getOptions()));
-        options.setStyle("-fx-text-fill: #64748b; -fx-font-size: 14px; -fx-font-style: italic;");
-        productInfo.getChildren().addAll(name, options);
-
-        Region spacer = new Region();
-        HBox.setHgrow(spacer, Priority.ALWAYS);
-
-        HBox quantityBox = new HBox(15);
-        quantityBox.setAlignment(Pos.CENTER);
-        quantityBox.getStyleClass().add("quantity-box");
-        Button minusBtn = new Button("-");
-        minusBtn.getStyleClass().add("btn-quantity");
-        minusBtn.setOnAction(e -> { if (item.getQuantity() > 1) { item.setQuantity(item.getQuantity() - 1); showCartScreen(mainController.getMainLayout(), bundle); } else { cartService.removeItem(index); showCartScreen(mainController.getMainLayout(), bundle); } });
-        Label quantityLabel = new Label(String.valueOf(item.getQuantity()));
-        quantityLabel.getStyleClass().add("label-quantity");
-        Button plusBtn = new Button("+");
-        plusBtn.getStyleClass().add("btn-quantity");
-        plusBtn.setOnAction(e -> { item.setQuantity(item.getQuantity() + 1); showCartScreen(mainController.getMainLayout(), bundle); });
-        quantityBox.getChildren().addAll(minusBtn, quantityLabel, plusBtn);
-
-        Label price = new Label(String.format("%.2f €", item.getTotalPrice()));
-        price.setStyle("-fx-font-weight: bold; -fx-font-size: 20px; -fx-text-fill: #d97706; -fx-min-width: 90; -fx-alignment: center-right;");
-        Button deleteBtn = new Button("🗑");
-        deleteBtn.setStyle("-fx-background-color: transparent; -fx-text-fill: #ef4444; -fx-font-size: 24px; -fx-cursor: hand; -fx-padding: 0 10 0 10;");
-        deleteBtn.setOnAction(e -> { cartService.removeItem(index); showCartScreen(mainController.getMainLayout(), bundle); });
-
-        row.getChildren().addAll(productInfo, spacer, quantityBox, price, deleteBtn);
-        return row;
+    /**
+     * Ligne d'un article (Image, Nom, Qté, Supprimer). Les boutons ne font que modifier le panier :
+     * la ligne elle-même est mise à jour (ou retirée) par onCartChanged.
+     */
+    private final class CartRow extends HBox {
+        private final Label quantityLabel = new Label();
+        private final Label price = new Label();
+        private CartItem item;
+
+        CartRow(CartItem item, ResourceBundle bundle) {
+            super(20);
+            setPadding(new Insets(15));
+            setAlignment(Pos.CENTER_LEFT);
+            getStyleClass().add("cart-row");
+
+            getChildren().add(InterfaceTools.createProductImageNode(item.getProduct().getImageUrl(), 80, 80));
+
+            VBox productInfo = new VBox(5);
+            productInfo.setAlignment(Pos.CENTER_LEFT);
+            Label name = new Label(mainController.getTranslateName(item.getProduct()));
+            name.setStyle("-fx-font-weight: bold; -fx-font-size: 20px; -fx-text-fill: #1e293b;");
+            Label options = new Label(String.join(", ", item.getOptions()));
+            options.setStyle("-fx-text-fill: #64748b; -fx-font-size: 14px; -fx-font-style: italic;");
+            productInfo.getChildren().addAll(name, options);
+
+            Region spacer = new Region();
+            HBox.setHgrow(spacer, Priority.ALWAYS);
+
+            HBox quantityBox = new HBox(15);
+            quantityBox.setAlignment(Pos.CENTER);
+            quantityBox.getStyleClass().add("quantity-box");
+            Button minusBtn = new Button("-");
+            minusBtn.getStyleClass().add("btn-quantity");
+            minusBtn.setOnAction(e -> { int index = index(); if (index < 0) return; if (this.item.getQuantity() > 1) cartService.updateQuantity(index, this.item.getQuantity() - 1); else cartService.removeItem(index); });
+            quantityLabel.getStyleClass().add("label-quantity");
+            Button plusBtn = new Button("+");
+            plusBtn.getStyleClass().add("btn-quantity");
+            plusBtn.setOnAction(e -> { int index = index(); if (index >= 0) cartService.updateQuantity(index, this.item.getQuantity() + 1); });
+            quantityBox.getChildren().addAll(minusBtn, quantityLabel, plusBtn);
+
+            price.setStyle("-fx-font-weight: bold; -fx-font-size: 20px; -fx-text-fill: #d97706; -fx-min-width: 90; -fx-alignment: center-right;");
+            Button deleteBtn = new Button("🗑");
+            deleteBtn.setStyle("-fx-background-color: transparent; -fx-text-fill: #ef4444; -fx-font-size: 24px; -fx-cursor: hand; -fx-padding: 0 10 0 10;");
+            deleteBtn.setOnAction(e -> { int index = index(); if (index >= 0) cartService.removeItem(index); });
+
+            getChildren().addAll(productInfo, spacer, quantityBox, price, deleteBtn);
+            update(item);
+        }
+
+        /** Nouvelle quantité de la même ligne : seuls la quantité et le prix changent. */
+        void update(CartItem item) {
+            this.item = item;
+            quantityLabel.setText(String.valueOf(item.getQuantity()));
+            price.setText(String.format("%.2f €", item.getTotalPrice()));
+        }
+
+        /** Position courante de la ligne (elle change quand une ligne précédente est supprimée). */
+        private int index() {
+            return getParent() == shownItemsList && shownItemsList != null ? shownItemsList.getChildren().indexOf(this) : -1;
+        }
     }
 
-    /** Affiche l'écran de confirmation de commande. */
-    private void showConfirmationScreen(int orderId, ResourceBundle bundle) {
+    /** Affiche l'écran de confirmation (numéro provisoire remplacé par celui du backend dès réception). */
+    private void showConfirmationScreen(OrderOutbox.PendingOrder pendingOrder, ResourceBundle bundle) {
         VBox root = new VBox(30);
         root.setAlignment(Pos.CENTER);
         root.setStyle("-fx-background-color: #f0fdf4;"); // Fond vert très clair
@@ -190,8 +290,13 @@ public class ShoppingCartController {
         Label message = new Label(bundle.getString("confirm.msg"));
         message.setStyle("-fx-font-size: 24px; -fx-text-fill: #475569; -fx-font-weight: bold;");
 
-        Label orderNumber = new Label("#" + orderId);
+        Label orderNumber = new Label("#" + pendingOrder.getProvisionalNumber());
         orderNumber.setStyle("-fx-font-size: 80px; -fx-font-weight: bold; -fx-text-fill: #16a34a;"); // Vert aussi
+        pendingOrder.getServerOrderId().whenComplete((orderId, error) -> Platform.runLater(() -> {
+            if (mainController.getMainLayout().getCenter() != root) return;
+            if (error == null) orderNumber.setText("#" + orderId);
+            else InterfaceTools.showAlert("Commande refusée par la cuisine, merci de vous adresser au comptoir.");
+        }));
 
         Label waitMessage = new Label(bundle.getString("confirm.wait"));
         waitMessage.setStyle("-fx-text-fill: #64748b; -fx-font-size: 20px; -fx-font-style: italic;");
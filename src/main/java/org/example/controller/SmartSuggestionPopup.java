@@ -14,72 +14,101 @@ import javafx.scene.text.TextAlignment;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
+import org.example.model.CartItem;
 import org.example.model.Product;
 import org.example.services.ApiService;
+import org.example.services.CatalogCache;
+import org.example.services.SuggestionEngine;
 import org.example.services.CartService;
 import org.example.utils.InterfaceTools;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * Contrôleur gérant l'algorithme et l'affichage des suggestions (Pop-up).
  */
 public class SmartSuggestionPopup {
 
-    private final ApiService apiService;
+    private static final long DISH_CATEGORY = 2L;
+
+    // Thread unique dédié au calcul des suggestions (jamais le thread JavaFX)
+    private static final ExecutorService WORKER = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "suggestion-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final CatalogCache catalogCache;
     private final CartService cartService;
     private long lastSuggestionTime = 0;
     private boolean suggestionPopupOpen = false;
-    private final Random random = new Random();
+    // Suggestions calculées par anticipation pour le plat affiché en détail
+    private CompletableFuture<List<Product>> prefetched;
+    private Long prefetchedProductId;
 
 
-    public SmartSuggestionPopup(ApiService apiService, CartService cartService) {
-        this.apiService = apiService;
+    public SmartSuggestionPopup(CatalogCache catalogCache, CartService cartService) {
+        this.catalogCache = catalogCache;
         this.cartService = cartService;
     }
 
+    /**
+     * Calcul anticipé des suggestions à l'ouverture de la fiche d'un plat : le résultat est
+     * normalement prêt quand le client clique sur "Ajouter", et le pop-up s'affiche sans attente.
+     */
+    public void prefetch(Product product) {
+        if (product.getCategoryId() == null || product.getCategoryId() != DISH_CATEGORY) return;
+        prefetched = computeAsync(product, cartService.getItems());
+        prefetchedProductId = product.getId();
+    }
+
     /** Vérifie si le produit ajouté déclenche une suggestion (ex: Plat -> Entrée/Dessert). */
     public void tryShowSuggestion(Product justAddedProduct, Stage ownerStage, ResourceBundle bundle, MainAppController mainController) {
+        CompletableFuture<List<Product>> pending = prefetched;
+        boolean reusable = pending != null && justAddedProduct.getId().equals(prefetchedProductId);
+        prefetched = null;
+        prefetchedProductId = null;
         if (suggestionPopupOpen || System.currentTimeMillis() - lastSuggestionTime < 1000) return;
 
-        Platform.runLater(() -> {
-            try {
-                List<Product> suggestions = new ArrayList<>();
-                // Logique : Si Plat (2) ajouté, proposer Entrée (1), Dessert (3) et Boisson (4)
-                if (justAddedProduct.getCategoryId() == 2) {
-                    List<Product> starters = apiService.getProductsByCategory(1L);
-                    if(!starters.isEmpty()) {
-                        // MODIFICATION ICI
-                        Product randomStarter = starters.get(random.nextInt(starters.size()));
-                        suggestions.add(randomStarter);
-                    }
-
-                    List<Product> desserts = apiService.getProductsByCategory(3L);
-                    if(!desserts.isEmpty()) {
-                        // MODIFICATION ICI
-                        Product randomDessert = desserts.get(random.nextInt(desserts.size()));
-                        suggestions.add(randomDessert);
-                    }
-
-                    List<Product> drinks = apiService.getProductsByCategory(4L);
-                    if(!drinks.isEmpty()) {
-                        // MODIFICATION ICI
-                        Product randomDrink = drinks.get(random.nextInt(drinks.size()));
-                        suggestions.add(randomDrink);
-                    }
-                }
-
-                if (!suggestions.isEmpty()) {
-                    lastSuggestionTime = System.currentTimeMillis();
-                    createPopup(suggestions, justAddedProduct, ownerStage, bundle, mainController);
-                }
-            } catch (Exception ex) {
-                ex.printStackTrace();
+        // Le plat qui vient d'être ajouté n'a aucun effet sur ses compléments : le calcul anticipé reste valable
+        if (!reusable) pending = computeAsync(justAddedProduct, cartService.getItems());
+
+        Consumer<List<Product>> show = suggestions -> {
+            if (!suggestions.isEmpty()) {
+                lastSuggestionTime = System.currentTimeMillis();
+                createPopup(suggestions, justAddedProduct, ownerStage, bundle, mainController);
             }
-        });
+        };
+        if (pending.isDone() && !pending.isCompletedExceptionally()) {
+            show.accept(pending.join());
+            return;
+        }
+        pending.orTimeout(ApiService.UI_ACTION_DEADLINE_MS, TimeUnit.MILLISECONDS).whenCompleteAsync((suggestions, error) -> {
+            if (error != null) {
+                error.printStackTrace();
+                return;
+            }
+            show.accept(suggestions);
+        }, Platform::runLater);
+    }
+
+    /**
+     * Calcule les suggestions hors du thread JavaFX. Le panier est copié par l'appelant (thread UI) ;
+     * le catalogue est indexé en mémoire : aucun appel réseau par catégorie.
+     */
+    private CompletableFuture<List<Product>> computeAsync(Product justAddedProduct, List<CartItem> cartItems) {
+        // Si Plat (2) ajouté : Entrée (1), Dessert (3) et Boisson (4) précalculés pour ce plat, hors panier
+        return catalogCache.getCatalog().thenApplyAsync(catalog -> {
+            SuggestionEngine engine = SuggestionEngine.forCatalog(catalog);
+            return engine.suggest(justAddedProduct, engine.cartMask(cartItems));
+        }, WORKER);
     }
 
     /** Construit la fenêtre modale (Popup) contenant les suggestions. */
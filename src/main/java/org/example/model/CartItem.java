@@ -2,16 +2,20 @@ package org.example.model;
 
 import java.util.List;
 
-public class CartItem {
-    private final Product product;  // Le produit ne change pas
-    private int quantity;           // La quantité peut changer
-    private final List<String> options; // Les options ne changent pas
+/**
+ * Ligne du panier, immuable : un changement de quantité produit une nouvelle ligne (withQuantity).
+ * Un instantané du panier peut donc partager ses lignes sans risque qu'elles changent sous lui.
+ */
+public final class CartItem {
+    private final Product product;
+    private final int quantity;
+    private final List<String> options;
 
-    // Constructeur AVEC options
+    // Constructeur AVEC options (copiées : la liste de l'appelant peut encore changer)
     public CartItem(Product product, int quantity, List<String> options) {
         this.product = product;
         this.quantity = quantity;
-        this.options = options;
+        this.options = options != null ? List.copyOf(options) : List.of();
     }
 
     // Getters
@@ -19,9 +23,9 @@ public class CartItem {
     public int getQuantity() { return quantity; }
     public List<String> getOptions() { return options; }
 
-    // Setter pour la quantité (seule la quantité peut changer)
-    public void setQuantity(int quantity) {
-        this.quantity = quantity;
+    // Même ligne avec une autre quantité
+    public CartItem withQuantity(int quantity) {
+        return new CartItem(product, quantity, options);
     }
 
     // Calcul du prix total
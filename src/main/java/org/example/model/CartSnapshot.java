@@ -0,0 +1,45 @@
+package org.example.model;
+
+import java.util.List;
+
+/**
+ * Vue immuable du panier à une version donnée. Le même objet est rendu tant que le panier ne
+ * change pas : comparer getVersion() suffit pour savoir s'il y a quelque chose à redessiner.
+ */
+public class CartSnapshot {
+    private static final CartSnapshot EMPTY = new CartSnapshot(0, List.of(), 0, 0);
+
+    private final long version;
+    private final List<CartItem> items;
+    private final long totalCents;
+    private final int totalProductCount;
+
+    public CartSnapshot(long version, List<CartItem> items, long totalCents, int totalProductCount) {
+        this.version = version;
+        this.items = List.copyOf(items);
+        this.totalCents = totalCents;
+        this.totalProductCount = totalProductCount;
+    }
+
+    /** Panier vide initial (version 0). */
+    public static CartSnapshot empty() {
+        return EMPTY;
+    }
+
+    public long getVersion() { return version; }
+    public List<CartItem> getItems() { return items; }
+    public long getTotalCents() { return totalCents; }
+    public int getTotalProductCount() { return totalProductCount; }
+
+    public double getTotal() {
+        return totalCents / 100.0;
+    }
+
+    public int getLineCount() {
+        return items.size();
+    }
+
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+}
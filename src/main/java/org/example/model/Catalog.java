@@ -0,0 +1,68 @@
+package org.example.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Catalogue complet chargé en une fois (GET /products) et indexé en mémoire
+ * par identifiant de catégorie et de produit. Immuable : une nouvelle version
+ * est construite à chaque changement de la carte côté backend.
+ */
+public class Catalog {
+    private static final Catalog EMPTY = new Catalog(0, List.of(), List.of());
+
+    private final long version;
+    private final List<Category> categories;
+    private final List<Product> products;
+    private final Map<Long, Integer> indexById;
+    private final Map<Long, List<Product>> productsByCategory;
+
+    public Catalog(long version, List<Category> categories, List<Product> products) {
+        this.version = version;
+        this.categories = List.copyOf(categories);
+        this.products = List.copyOf(products);
+        this.indexById = new HashMap<>(products.size() * 2);
+        Map<Long, List<Product>> byCategory = new HashMap<>();
+        // Un seul passage sur la liste pour construire les deux index
+        for (int i = 0; i < this.products.size(); i++) {
+            Product product = this.products.get(i);
+            indexById.put(product.getId(), i);
+            byCategory.computeIfAbsent(product.getCategoryId(), id -> new ArrayList<>()).add(product);
+        }
+        byCategory.replaceAll((id, list) -> Collections.unmodifiableList(list));
+        this.productsByCategory = byCategory;
+    }
+
+    /** Catalogue vide (aucune donnée encore reçue). */
+    public static Catalog empty() {
+        return EMPTY;
+    }
+
+    public long getVersion() { return version; }
+    public List<Category> getCategories() { return categories; }
+    public List<Product> getProducts() { return products; }
+
+    public boolean isEmpty() {
+        return categories.isEmpty() && products.isEmpty();
+    }
+
+    /** Produit par identifiant, ou null s'il n'existe pas (plus) dans la carte. */
+    public Product getProduct(Long productId) {
+        Integer index = indexById.get(productId);
+        return index != null ? products.get(index) : null;
+    }
+
+    /** Position du produit dans getProducts() (index dense, stable pour cette version), ou -1. */
+    public int indexOf(Long productId) {
+        Integer index = indexById.get(productId);
+        return index != null ? index : -1;
+    }
+
+    /** Produits d'une catégorie dans l'ordre renvoyé par le backend (liste vide si aucun). */
+    public List<Product> getProductsByCategory(Long categoryId) {
+        return productsByCategory.getOrDefault(categoryId, List.of());
+    }
+}
@@ -7,6 +7,8 @@ public class Order {
     private double totalPrice;
     private List<OrderItem> items;
 
+    public Order() {}
+
     public Order(String customerName, double totalPrice, List<OrderItem> items) {
         this.customerName = customerName;
         this.totalPrice = totalPrice;
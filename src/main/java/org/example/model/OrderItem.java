@@ -6,6 +6,8 @@ public class OrderItem {
     private double unitPrice;
     private String options;
 
+    public OrderItem() {}
+
     public OrderItem(int productId, int quantity, double unitPrice, String options) {
         this.productId = productId;
         this.quantity = quantity;
@@ -1,16 +1,37 @@
 package org.example.services;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.ResponseHandler;
 import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
 import org.example.model.Category;
 import org.example.model.Product;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.StringEntity;
@@ -19,62 +40,461 @@ import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 public class ApiService {
-    private final String BASE_URL = "http://localhost:7000/api";
-    private final ObjectMapper mapper = new ObjectMapper();
+    private static final String BASE_URL = "http://localhost:7000/api";
+    // Pool de connexions partagé par toutes les instances (keep-alive vers le backend)
+    private static final int MAX_CONNECTIONS_TOTAL = 20;
+    private static final int MAX_CONNECTIONS_PER_ROUTE = 10;
+    private static final long IDLE_EVICTION_SECONDS = 30;
+    private static final long DEFAULT_KEEP_ALIVE_MS = 60_000;
+
+    // Délais par endpoint, surchargeables via -Dapi.timeout.<endpoint>.<connect|socket|pool>.ms
+    private static final RequestConfig CATALOG_TIMEOUTS = timeouts("catalog", 2_000, 3_000, 1_000);
+    private static final RequestConfig ORDER_TIMEOUTS = timeouts("orders", 2_000, 8_000, 1_000);
+    private static final RequestConfig IMAGE_TIMEOUTS = timeouts("images", 2_000, 10_000, 1_000);
+
+    // Images non embarquées : servies par le backend sous ce préfixe (-Dapi.images.base.url)
+    private static final String IMAGES_BASE_URL = System.getProperty("api.images.base.url", BASE_URL + "/images/");
+    // Taille maximale acceptée pour une image téléchargée
+    private static final int MAX_IMAGE_BYTES = 8 * 1024 * 1024;
+
+    /** Délai total accordé à une action utilisateur (ex: ouverture du menu), -Dui.action.deadline.ms. */
+    public static final long UI_ACTION_DEADLINE_MS = Long.getLong("ui.action.deadline.ms", 6_000);
+
+    private static final PoolingHttpClientConnectionManager CONNECTION_MANAGER = createConnectionManager();
+    private static final CloseableHttpClient CLIENT = HttpClients.custom()
+            .setConnectionManager(CONNECTION_MANAGER)
+            .setDefaultRequestConfig(CATALOG_TIMEOUTS)
+            .setKeepAliveStrategy((response, context) -> {
+                long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                return keepAlive > 0 ? keepAlive : DEFAULT_KEEP_ALIVE_MS;
+            })
+            .evictExpiredConnections()
+            .evictIdleConnections(IDLE_EVICTION_SECONDS, TimeUnit.SECONDS)
+            .build();
+
+    // Disjoncteur partagé : échecs ou appels lents consécutifs -> réponses dégradées sans attendre le réseau
+    private static final CircuitBreaker BREAKER = new CircuitBreaker(
+            Integer.getInteger("api.breaker.failures", 5),
+            Long.getLong("api.breaker.slow.ms", 2_500),
+            Long.getLong("api.breaker.open.ms", 10_000),
+            ApiService::probeBackend);
+
+    // Images : un disjoncteur par hôte, pour qu'un hôte d'images lent ou en erreur ne coupe jamais le backend
+    private static final ConcurrentHashMap<String, CircuitBreaker> IMAGE_BREAKERS = new ConcurrentHashMap<>();
+
+    // Exécuteur borné dédié aux entrées/sorties réseau (jamais le thread JavaFX)
+    private static final int IO_THREADS = 4;
+    private static final int IO_QUEUE_CAPACITY = 64;
+    private static final ExecutorService IO_EXECUTOR = createIoExecutor();
+
+    private static ExecutorService createIoExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(IO_THREADS, IO_THREADS, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(IO_QUEUE_CAPACITY),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "api-io-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    // Téléchargements d'images : pool séparé pour ne jamais retarder les appels du catalogue ou des commandes
+    private static final int IMAGE_DOWNLOAD_THREADS = Integer.getInteger("api.images.parallel", 3);
+    private static final ExecutorService IMAGE_EXECUTOR = createImageExecutor();
+
+    private static ExecutorService createImageExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(IMAGE_DOWNLOAD_THREADS, IMAGE_DOWNLOAD_THREADS, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "api-images-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    // Écritures disque des caches (instantané du catalogue, index des images) : un seul thread, file non bornée.
+    // Chaque cache regroupe ses sauvegardes (au plus une en attente), la file ne peut donc pas grossir sans fin
+    private static final ExecutorService PERSISTENCE_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cache-save");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Requêtes GET en cours, partagées entre appelants simultanés (single-flight)
+    private static final ConcurrentHashMap<String, CompletableFuture<?>> IN_FLIGHT = new ConcurrentHashMap<>();
+    private static final AtomicLong COLLAPSED_REQUESTS = new AtomicLong();
+
+    /** Exécuteur des appels réseau, réutilisable par les autres services pour leurs tâches d'E/S. */
+    public static ExecutorService ioExecutor() {
+        return IO_EXECUTOR;
+    }
+
+    /** Exécuteur des sauvegardes sur disque ; jamais saturé par le trafic réseau. */
+    public static ExecutorService persistenceExecutor() {
+        return PERSISTENCE_EXECUTOR;
+    }
+
+    private static RequestConfig timeouts(String endpoint, int connectMs, int socketMs, int poolMs) {
+        String prefix = "api.timeout." + endpoint + ".";
+        return RequestConfig.custom()
+                .setConnectTimeout(Integer.getInteger(prefix + "connect.ms", connectMs))
+                .setSocketTimeout(Integer.getInteger(prefix + "socket.ms", socketMs))
+                .setConnectionRequestTimeout(Integer.getInteger(prefix + "pool.ms", poolMs))
+                .build();
+    }
+
+    private static PoolingHttpClientConnectionManager createConnectionManager() {
+        PoolingHttpClientConnectionManager manager = new PoolingHttpClientConnectionManager(DEFAULT_KEEP_ALIVE_MS, TimeUnit.MILLISECONDS);
+        manager.setMaxTotal(MAX_CONNECTIONS_TOTAL);
+        manager.setDefaultMaxPerRoute(MAX_CONNECTIONS_PER_ROUTE);
+        // Revalide une connexion restée inactive avant de la réutiliser
+        manager.setValidateAfterInactivity(2_000);
+        return manager;
+    }
+
+    /** Ferme le client HTTP partagé et son pool (appelé à l'arrêt de l'application). */
+    public static void shutdown() {
+        BREAKER.shutdown();
+        IMAGE_BREAKERS.values().forEach(CircuitBreaker::shutdown);
+        IO_EXECUTOR.shutdownNow();
+        IMAGE_EXECUTOR.shutdownNow();
+        // Les sauvegardes déjà planifiées se terminent
+        PERSISTENCE_EXECUTOR.shutdown();
+        try {
+            CLIENT.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /** Levée sans appel réseau quand le disjoncteur est ouvert. */
+    public static class CircuitOpenException extends IOException {
+        public CircuitOpenException() {
+            super("Backend indisponible (disjoncteur ouvert)");
+        }
+    }
+
+    public static CircuitBreaker.State getCircuitState() {
+        return BREAKER.getState();
+    }
+
+    /**
+     * Réponse complète mais inexploitable (statut inattendu, corps trop volumineux) : le backend a
+     * répondu, ce n'est donc pas un échec pour le disjoncteur, sauf sur une erreur serveur (5xx).
+     */
+    public static class ResponseRejectedException extends IOException {
+        public ResponseRejectedException(String message) {
+            super(message);
+        }
+    }
+
+    /** Exécute une requête à travers le disjoncteur du backend, avec les délais de l'endpoint concerné. */
+    private static <T> T execute(HttpRequestBase request, RequestConfig timeouts, ResponseHandler<T> handler) throws IOException {
+        return execute(request, timeouts, BREAKER, handler);
+    }
+
+    /**
+     * L'échange est mesuré et ses erreurs comptées jusqu'à la lecture complète du corps par le handler :
+     * un corps qui arrive au compte-gouttes ou une coupure en cours de lecture pèsent sur le disjoncteur.
+     */
+    private static <T> T execute(HttpRequestBase request, RequestConfig timeouts, CircuitBreaker breaker, ResponseHandler<T> handler) throws IOException {
+        if (!breaker.allowRequest()) throw new CircuitOpenException();
+        request.setConfig(timeouts);
+        long start = System.nanoTime();
+        int status = 0;
+        try (CloseableHttpResponse response = CLIENT.execute(request)) {
+            status = response.getStatusLine().getStatusCode();
+            T result = handler.handleResponse(response);
+            if (status >= 500) breaker.recordFailure();
+            else breaker.recordCall(System.nanoTime() - start);
+            return result;
+        } catch (ResponseRejectedException e) {
+            if (status >= 500) breaker.recordFailure();
+            else breaker.recordCall(System.nanoTime() - start);
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            breaker.recordFailure();
+            throw e;
+        }
+    }
+
+    /** Disjoncteur de l'hôte servant cette image ; sa sonde interroge la racine de l'hôte. */
+    private static CircuitBreaker imageBreaker(HttpGet request) {
+        String origin = request.getURI().getScheme() + "://" + request.getURI().getRawAuthority();
+        return IMAGE_BREAKERS.computeIfAbsent(origin, key -> new CircuitBreaker("images " + key,
+                Integer.getInteger("api.breaker.failures", 5),
+                Long.getLong("api.breaker.images.slow.ms", 5_000),
+                Long.getLong("api.breaker.open.ms", 10_000),
+                () -> probeImageHost(key)));
+    }
+
+    private static boolean probeImageHost(String origin) {
+        HttpHead request = new HttpHead(origin + "/");
+        request.setConfig(IMAGE_TIMEOUTS);
+        try (CloseableHttpResponse response = CLIENT.execute(request)) {
+            EntityUtils.consumeQuietly(response.getEntity());
+            return response.getStatusLine().getStatusCode() < 500;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** Sonde du disjoncteur semi-ouvert : le backend répond-il à nouveau sans erreur serveur ? */
+    private static boolean probeBackend() {
+        HttpGet request = new HttpGet(BASE_URL + "/categories");
+        request.setConfig(CATALOG_TIMEOUTS);
+        try (CloseableHttpResponse response = CLIENT.execute(request)) {
+            EntityUtils.consumeQuietly(response.getEntity());
+            return response.getStatusLine().getStatusCode() < 500;
+        } catch (IOException e) {
+            return false;
+        }
+    }
 
     public List<Category> getCategories() {
-        try (CloseableHttpClient client = HttpClients.createDefault()) {
-            HttpGet request = new HttpGet(BASE_URL + "/categories");
-            try (CloseableHttpResponse response = client.execute(request)) {
-                return mapper.readValue(response.getEntity().getContent(), new TypeReference<List<Category>>(){});
-            }
+        HttpGet request = new HttpGet(BASE_URL + "/categories");
+        try {
+            return execute(request, CATALOG_TIMEOUTS, response -> JsonCodecs.CATEGORY_LIST_READER.<List<Category>>readValue(response.getEntity().getContent()));
         } catch (Exception e) { return new ArrayList<>(); }
     }
 
     public List<Product> getProductsByCategory(Long categoryId) {
-        try (CloseableHttpClient client = HttpClients.createDefault()) {
-            HttpGet request = new HttpGet(BASE_URL + "/products?category=" + categoryId);
-            try (CloseableHttpResponse response = client.execute(request)) {
-                return mapper.readValue(response.getEntity().getContent(), new TypeReference<List<Product>>(){});
-            }
+        HttpGet request = new HttpGet(BASE_URL + "/products?category=" + categoryId);
+        try {
+            return execute(request, CATALOG_TIMEOUTS, response -> JsonCodecs.PRODUCT_LIST_READER.<List<Product>>readValue(response.getEntity().getContent()));
         } catch (Exception e) {
             e.printStackTrace();
-            return new ArrayList<>(); 
+            return new ArrayList<>();
         }
     }
 
-    public int createOrder(Order order) {
-        try (CloseableHttpClient client = HttpClients.createDefault()) {
-            HttpPost request = new HttpPost(BASE_URL + "/orders");
-            
-            String json = mapper.writeValueAsString(order);
-            StringEntity entity = new StringEntity(json, StandardCharsets.UTF_8);
-            request.setEntity(entity);
-            request.setHeader("Accept", "application/json");
-            request.setHeader("Content-type", "application/json");
-
-            try (CloseableHttpResponse response = client.execute(request)) {
-                if (response.getStatusLine().getStatusCode() == 201) {
-                    Map<String, Object> map = mapper.readValue(response.getEntity().getContent(), new TypeReference<Map<String, Object>>(){});
-                    return (int) map.get("orderId");
-                }
+    /** Refus définitif d'une commande par le backend (4xx) : inutile de la renvoyer. */
+    public static class OrderRejectedException extends ResponseRejectedException {
+        private final int status;
+
+        public OrderRejectedException(int status) {
+            super("Commande refusée par le backend (HTTP " + status + ")");
+            this.status = status;
+        }
+
+        public int getStatus() { return status; }
+    }
+
+    /**
+     * Envoie une commande avec une clé d'idempotence : un renvoi avec la même clé ne crée pas de doublon.
+     * Lève OrderRejectedException sur un refus définitif, IOException sur une erreur transitoire.
+     */
+    public int submitOrder(Order order, String idempotencyKey) throws IOException {
+        HttpPost request = new HttpPost(BASE_URL + "/orders");
+
+        String json = JsonCodecs.ORDER_WRITER.writeValueAsString(order);
+        StringEntity entity = new StringEntity(json, StandardCharsets.UTF_8);
+        request.setEntity(entity);
+        request.setHeader("Accept", "application/json");
+        request.setHeader("Content-type", "application/json");
+        request.setHeader("Idempotency-Key", idempotencyKey);
+
+        return execute(request, ORDER_TIMEOUTS, response -> {
+            int status = response.getStatusLine().getStatusCode();
+            if (status == 200 || status == 201) {
+                Map<String, Object> map = JsonCodecs.MAP_READER.readValue(response.getEntity().getContent());
+                return ((Number) map.get("orderId")).intValue();
             }
-        } catch (Exception e) {
-            e.printStackTrace();
+            // Consomme le corps pour rendre la connexion au pool
+            EntityUtils.consumeQuietly(response.getEntity());
+            if (status >= 400 && status < 500 && status != 408 && status != 429) {
+                throw new OrderRejectedException(status);
+            }
+            throw new ResponseRejectedException("HTTP " + status + " sur /orders");
+        });
+    }
+
+    /** Résultat d'un GET conditionnel : valeur absente quand le backend répond 304 Not Modified. */
+    public static class ConditionalResponse<T> {
+        private final boolean notModified;
+        private final T value;
+        private final String etag;
+        private final String lastModified;
+
+        ConditionalResponse(boolean notModified, T value, String etag, String lastModified) {
+            this.notModified = notModified;
+            this.value = value;
+            this.etag = etag;
+            this.lastModified = lastModified;
         }
-        return -1;
+
+        public boolean isNotModified() { return notModified; }
+        public T getValue() { return value; }
+        public String getEtag() { return etag; }
+        public String getLastModified() { return lastModified; }
     }
-    public List<Product> getAllProducts() {
-        try (CloseableHttpClient client = HttpClients.createDefault()) {
-            HttpGet request = new HttpGet(BASE_URL + "/products");
-            try (CloseableHttpResponse response = client.execute(request)) {
-                return mapper.readValue(response.getEntity().getContent(), new TypeReference<List<Product>>(){});
+
+    /**
+     * GET conditionnel (If-None-Match / If-Modified-Since) sur un chemin de l'API.
+     * Contrairement aux méthodes ci-dessus, les erreurs réseau sont propagées pour que l'appelant
+     * puisse se rabattre sur sa copie locale.
+     */
+    public <T> ConditionalResponse<T> getConditional(String path, String etag, String lastModified, ObjectReader reader) throws IOException {
+        HttpGet request = new HttpGet(BASE_URL + path);
+        if (etag != null) request.setHeader("If-None-Match", etag);
+        if (lastModified != null) request.setHeader("If-Modified-Since", lastModified);
+        return execute(request, CATALOG_TIMEOUTS, response -> {
+            int status = response.getStatusLine().getStatusCode();
+            if (status == 304) {
+                EntityUtils.consumeQuietly(response.getEntity());
+                return new ConditionalResponse<T>(true, null, etag, lastModified);
             }
-        } catch (Exception e) {
-            e.printStackTrace();
-            return new ArrayList<>();
+            if (status < 200 || status >= 300) {
+                EntityUtils.consumeQuietly(response.getEntity());
+                throw new ResponseRejectedException("HTTP " + status + " sur " + path);
+            }
+            T value = reader.readValue(response.getEntity().getContent());
+            return new ConditionalResponse<>(false, value, headerValue(response, "ETag"), headerValue(response, "Last-Modified"));
+        });
+    }
+
+    /**
+     * GET d'une liste de produits lue en flux : chaque produit est transmis à onProduct (sur le thread
+     * d'E/S, qui doit rester bref) dès qu'il est décodé ; la liste complète et ses validateurs sont
+     * rendus à la fin, comme pour getConditional. Sert au premier chargement, sans copie locale.
+     */
+    public ConditionalResponse<List<Product>> streamProducts(String path, Consumer<Product> onProduct) throws IOException {
+        HttpGet request = new HttpGet(BASE_URL + path);
+        return execute(request, CATALOG_TIMEOUTS, response -> {
+            int status = response.getStatusLine().getStatusCode();
+            if (status < 200 || status >= 300 || response.getEntity() == null) {
+                EntityUtils.consumeQuietly(response.getEntity());
+                throw new ResponseRejectedException("HTTP " + status + " sur " + path);
+            }
+            List<Product> products = new ArrayList<>();
+            JsonCodecs.streamProducts(response.getEntity().getContent(), product -> {
+                products.add(product);
+                onProduct.accept(product);
+            });
+            return new ConditionalResponse<>(false, products, headerValue(response, "ETag"), headerValue(response, "Last-Modified"));
+        });
+    }
+
+    /** URL absolue d'une image produit : telle quelle si elle l'est déjà, sinon relative au préfixe images du backend. */
+    public static String imageUrl(String imageUrl) {
+        if (imageUrl.startsWith("http://") || imageUrl.startsWith("https://")) return imageUrl;
+        return IMAGES_BASE_URL + imageUrl;
+    }
+
+    /**
+     * Téléchargement conditionnel d'une image (If-None-Match / If-Modified-Since) : valeur absente sur 304.
+     * Les erreurs réseau et les statuts non 2xx sont propagés.
+     */
+    public ConditionalResponse<byte[]> downloadImage(String url, String etag, String lastModified) throws IOException {
+        HttpGet request = new HttpGet(url);
+        if (etag != null) request.setHeader("If-None-Match", etag);
+        if (lastModified != null) request.setHeader("If-Modified-Since", lastModified);
+        return execute(request, IMAGE_TIMEOUTS, imageBreaker(request), response -> {
+            int status = response.getStatusLine().getStatusCode();
+            if (status == 304) {
+                EntityUtils.consumeQuietly(response.getEntity());
+                return new ConditionalResponse<byte[]>(true, null, etag, lastModified);
+            }
+            if (status < 200 || status >= 300 || response.getEntity() == null) {
+                EntityUtils.consumeQuietly(response.getEntity());
+                throw new ResponseRejectedException("HTTP " + status + " sur " + url);
+            }
+            if (response.getEntity().getContentLength() > MAX_IMAGE_BYTES) {
+                EntityUtils.consumeQuietly(response.getEntity());
+                throw new ResponseRejectedException("Image trop volumineuse : " + url);
+            }
+            byte[] body = EntityUtils.toByteArray(response.getEntity());
+            if (body.length > MAX_IMAGE_BYTES) throw new ResponseRejectedException("Image trop volumineuse : " + url);
+            return new ConditionalResponse<>(false, body, headerValue(response, "ETag"), headerValue(response, "Last-Modified"));
+        });
+    }
+
+    private static String headerValue(HttpResponse response, String name) {
+        return response.getFirstHeader(name) != null ? response.getFirstHeader(name).getValue() : null;
+    }
+
+    // --- Variantes asynchrones (résultat à appliquer sur le thread JavaFX via Platform.runLater) ---
+
+    /** Variante asynchrone de getConditional ; les erreurs réseau terminent le future en exception. */
+    public <T> CompletableFuture<ConditionalResponse<T>> getConditionalAsync(String path, String etag, String lastModified, ObjectReader reader) {
+        return singleFlight("GET " + path + " | " + etag + " | " + lastModified, () -> {
+            try {
+                return getConditional(path, etag, lastModified, reader);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /** Variante asynchrone de streamProducts, sur l'exécuteur d'E/S ; les erreurs terminent le future en exception. */
+    public CompletableFuture<ConditionalResponse<List<Product>>> streamProductsAsync(String path, Consumer<Product> onProduct) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return streamProducts(path, onProduct);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }, IO_EXECUTOR);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
         }
     }
-}
 
+    /** Variante asynchrone de downloadImage, sur le pool borné des images ; les erreurs terminent le future en exception. */
+    public CompletableFuture<ConditionalResponse<byte[]>> downloadImageAsync(String url, String etag, String lastModified) {
+        return singleFlight("GET " + url + " | " + etag + " | " + lastModified, () -> {
+            try {
+                return downloadImage(url, etag, lastModified);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, IMAGE_EXECUTOR);
+    }
+
+    /** Nombre de requêtes évitées parce qu'une requête identique était déjà en cours. */
+    public static long getCollapsedRequestCount() {
+        return COLLAPSED_REQUESTS.get();
+    }
+
+    /**
+     * Exécute l'appel sur l'exécuteur d'E/S, sauf si un appel identique est déjà en vol :
+     * l'appelant reçoit alors le résultat de celui-ci. Chaque appelant obtient sa propre copie
+     * du future, pour qu'une annulation locale n'affecte pas les autres.
+     */
+    private static <T> CompletableFuture<T> singleFlight(String key, Supplier<T> call) {
+        return singleFlight(key, call, IO_EXECUTOR);
+    }
 
+    @SuppressWarnings("unchecked")
+    private static <T> CompletableFuture<T> singleFlight(String key, Supplier<T> call, ExecutorService executor) {
+        CompletableFuture<T> created = new CompletableFuture<>();
+        CompletableFuture<T> existing = (CompletableFuture<T>) IN_FLIGHT.putIfAbsent(key, created);
+        if (existing != null) {
+            COLLAPSED_REQUESTS.incrementAndGet();
+            return existing.copy();
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    created.complete(call.get());
+                } catch (CompletionException e) {
+                    created.completeExceptionally(e.getCause());
+                } catch (RuntimeException e) {
+                    created.completeExceptionally(e);
+                } finally {
+                    IN_FLIGHT.remove(key, created);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            IN_FLIGHT.remove(key, created);
+            created.completeExceptionally(e);
+        }
+        return created.copy();
+    }
+}
@@ -1,151 +1,319 @@
 package org.example.services;
 
 import org.example.model.CartItem;
+import org.example.model.CartSnapshot;
 import org.example.model.Product;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 
+/**
+ * Panier de la borne. Sûr en accès concurrent : toutes les lectures et écritures passent par le
+ * verrou de l'instance (le thread JavaFX, les pop-ups de suggestion et le calcul des suggestions
+ * sur un autre thread peuvent y accéder en même temps).
+ * Les lignes sont indexées par (produit, options canoniques) : fusionner un ajout avec une ligne
+ * existante ne parcourt plus le panier. Le total (en centimes, arithmétique exacte) et le nombre
+ * de produits sont tenus à jour à chaque modification : leur lecture est en temps constant.
+ * Les lectures passent par un instantané immuable et versionné (CartSnapshot), copié au plus une
+ * fois par modification : tant que le panier ne change pas, le même objet est rendu. Les lignes
+ * elles-mêmes ne sont jamais modifiées en place (une ligne dont la quantité change est remplacée).
+ * Chaque modification publie un événement fin (ligne ajoutée, quantité modifiée, ligne supprimée,
+ * panier vidé) ; les événements sont regroupés par abonné et livrés en un seul appel sur son
+ * exécuteur (Platform::runLater pour l'interface : un appel par pulse au plus). La livraison est
+ * confiée à l'exécuteur après la sortie du verrou : un exécuteur lent ou bloquant ne retient
+ * jamais les autres threads qui lisent ou modifient le panier.
+ */
 public class CartService {
-    private static CartService instance;
+    private static final CartService INSTANCE = new CartService();
+
     private final List<CartItem> items;
-    private final ApiService apiService;
+    // Position de chaque ligne dans items
+    private final Map<LineKey, Integer> lineIndex;
+    private final CatalogCache catalogCache;
+
+    // Agrégats maintenus à chaque ajout, mise à jour ou suppression
+    private long totalCents;
+    private int totalProductCount;
+
+    // Version incrémentée à chaque modification ; instantané recopié à la demande (null = à refaire)
+    private long version;
+    private CartSnapshot snapshot = CartSnapshot.empty();
+
+    // Abonnés aux changements, chacun avec son exécuteur de livraison et ses événements en attente
+    private final List<Registration> listeners = new CopyOnWriteArrayList<>();
+
+    /** Abonné aux changements du panier. */
+    public interface CartListener {
+        /** Événements survenus depuis la dernière livraison, dans l'ordre, et l'instantané qui en résulte. */
+        void onCartChanged(List<CartChange> changes, CartSnapshot snapshot);
+    }
+
+    /** Changement élémentaire du panier ; index = position de la ligne au moment du changement. */
+    public static final class CartChange {
+        public enum Type { LINE_ADDED, QUANTITY_CHANGED, LINE_REMOVED, CLEARED }
+
+        private final Type type;
+        private final int index;
+        private final CartItem item;
+        private final long version;
+
+        CartChange(Type type, int index, CartItem item, long version) {
+            this.type = type;
+            this.index = index;
+            this.item = item;
+            this.version = version;
+        }
+
+        public Type getType() { return type; }
+        public int getIndex() { return index; }
+        /** Nouvelle ligne (ajout, quantité) ou ligne supprimée ; null pour CLEARED. */
+        public CartItem getItem() { return item; }
+        /** Version du panier après ce changement. */
+        public long getVersion() { return version; }
+    }
+
+    private static final class Registration {
+        final CartListener listener;
+        final Executor executor;
+        List<CartChange> pending = new ArrayList<>();
+        boolean scheduled;
+
+        Registration(CartListener listener, Executor executor) {
+            this.listener = listener;
+            this.executor = executor;
+        }
+    }
+
+    /** Clé d'une ligne : identifiant produit et options triées (l'ordre de sélection n'a pas d'importance). */
+    private static final class LineKey {
+        private final Long productId;
+        private final List<String> options;
+        private final int hash;
+
+        LineKey(Long productId, List<String> options) {
+            this.productId = productId;
+            List<String> canonical = new ArrayList<>(options != null ? options : List.of());
+            canonical.sort(null);
+            this.options = canonical;
+            this.hash = 31 * Objects.hashCode(productId) + canonical.hashCode();
+        }
+
+        static LineKey of(CartItem item) {
+            return new LineKey(item.getProduct().getId(), item.getOptions());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof LineKey)) return false;
+            LineKey other = (LineKey) o;
+            return hash == other.hash && Objects.equals(productId, other.productId) && options.equals(other.options);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
 
     private CartService() {
         items = new ArrayList<>();
-        apiService = new ApiService();
+        lineIndex = new HashMap<>();
+        catalogCache = CatalogCache.getInstance();
     }
 
     public static CartService getInstance() {
-        if (instance == null) {
-            instance = new CartService();
-        }
-        return instance;
+        return INSTANCE;
     }
 
     // Ajouter un produit au panier
     public void addProduct(Product product, int quantity, List<String> options) {
-        // Vérifie si le produit avec les mêmes options existe déjà
-        CartItem newItem = new CartItem(product, quantity, options);
-
-        for (CartItem item : items) {
-            if (item.getProduct().getId().equals(product.getId()) &&
-                    item.getOptions().equals(options)) {
-                // Même produit avec mêmes options : augmente la quantité
-                item.setQuantity(item.getQuantity() + quantity);
-                return;
+        // Même produit avec mêmes options : augmente la quantité de la ligne existante
+        LineKey key = new LineKey(product.getId(), options);
+        List<Registration> toSchedule;
+        synchronized (this) {
+            Integer existing = lineIndex.get(key);
+            if (existing != null) {
+                CartItem item = items.get(existing);
+                CartItem updated = item.withQuantity(item.getQuantity() + quantity);
+                items.set(existing, updated);
+                // Prix de la ligne existante : c'est lui qui sera retiré à la suppression ou au changement de quantité
+                totalCents += priceCents(item.getProduct()) * quantity;
+                totalProductCount += quantity;
+                toSchedule = changed(CartChange.Type.QUANTITY_CHANGED, existing, updated);
+            } else {
+                // Sinon, ajoute un nouvel item
+                CartItem added = new CartItem(product, quantity, options);
+                lineIndex.put(key, items.size());
+                items.add(added);
+                totalCents += priceCents(product) * quantity;
+                totalProductCount += quantity;
+                toSchedule = changed(CartChange.Type.LINE_ADDED, items.size() - 1, added);
             }
         }
-
-        // Sinon, ajoute un nouvel item
-        items.add(newItem);
+        schedule(toSchedule);
     }
 
     // Supprimer un item par index
     public void removeItem(int index) {
-        if (index >= 0 && index < items.size()) {
-            items.remove(index);
+        List<Registration> toSchedule;
+        synchronized (this) {
+            if (index < 0 || index >= items.size()) return;
+            CartItem removed = items.remove(index);
+            lineIndex.remove(LineKey.of(removed));
+            // Les lignes suivantes remontent d'un rang
+            for (int i = index; i < items.size(); i++) {
+                lineIndex.put(LineKey.of(items.get(i)), i);
+            }
+            totalCents -= priceCents(removed.getProduct()) * removed.getQuantity();
+            totalProductCount -= removed.getQuantity();
+            toSchedule = changed(CartChange.Type.LINE_REMOVED, index, removed);
         }
+        schedule(toSchedule);
     }
 
     // Vider le panier
     public void clear() {
-        items.clear();
+        List<Registration> toSchedule;
+        synchronized (this) {
+            if (items.isEmpty()) return;
+            items.clear();
+            lineIndex.clear();
+            totalCents = 0;
+            totalProductCount = 0;
+            toSchedule = changed(CartChange.Type.CLEARED, -1, null);
+        }
+        schedule(toSchedule);
     }
 
-    // Calculer le total
-    public double getTotal() {
-        double total = 0;
-        for (CartItem item : items) {
-            total += item.getTotalPrice();
+    /** Instantané immuable du panier ; le même objet tant que le panier n'a pas changé. */
+    public synchronized CartSnapshot getSnapshot() {
+        if (snapshot == null) {
+            snapshot = new CartSnapshot(version, items, totalCents, totalProductCount);
         }
-        return total;
+        return snapshot;
+    }
+
+    /** Version courante du panier, incrémentée à chaque modification. */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    // Total en euros (dérivé du total exact en centimes)
+    public synchronized double getTotal() {
+        return totalCents / 100.0;
+    }
+
+    // Total exact en centimes
+    public synchronized long getTotalCents() {
+        return totalCents;
     }
 
     // Nombre d'articles (items différents)
-    public int getItemCount() {
+    public synchronized int getItemCount() {
         return items.size();
     }
 
     // Nombre total de produits (quantités cumulées)
-    public int getTotalProductCount() {
-        int count = 0;
-        for (CartItem item : items) {
-            count += item.getQuantity();
-        }
-        return count;
+    public synchronized int getTotalProductCount() {
+        return totalProductCount;
     }
 
-    // Getters
+    // Lignes du panier (liste immuable de l'instantané courant, sans copie supplémentaire)
     public List<CartItem> getItems() {
-        return new ArrayList<>(items); // Retourne une copie
+        return getSnapshot().getItems();
     }
 
     // Méthode pour mettre à jour la quantité d'un item
     public void updateQuantity(int index, int newQuantity) {
-        if (index >= 0 && index < items.size() && newQuantity > 0) {
-            items.get(index).setQuantity(newQuantity);
+        List<Registration> toSchedule;
+        synchronized (this) {
+            if (index < 0 || index >= items.size() || newQuantity <= 0) return;
+            CartItem item = items.get(index);
+            int delta = newQuantity - item.getQuantity();
+            if (delta == 0) return;
+            CartItem updated = item.withQuantity(newQuantity);
+            items.set(index, updated);
+            totalCents += priceCents(item.getProduct()) * delta;
+            totalProductCount += delta;
+            toSchedule = changed(CartChange.Type.QUANTITY_CHANGED, index, updated);
         }
+        schedule(toSchedule);
     }
 
-    // NOUVELLE MÉTHODE : Récupérer toutes les suggestions pour un plat donné
-    public List<Product> getLimitedSuggestions(Product mainProduct) {
-        List<Product> allProducts = apiService.getAllProducts();
-        List<Product> suggestions = new ArrayList<>();
-
-        Set<Long> productIdsInCart = items.stream()
-                .map(item -> item.getProduct().getId())
-                .collect(Collectors.toSet());
-
-        List<Product> availableProducts = allProducts.stream()
-                .filter(p -> !p.getId().equals(mainProduct.getId()))
-                .filter(p -> !productIdsInCart.contains(p.getId()))
-                .filter(Product::isAvailable)
-                .collect(Collectors.toList());
-
-        // Créer une "graine" basée sur le plat pour avoir des suggestions constantes
-        String seedString = mainProduct.getName() + mainProduct.getId();
-        int seed = Math.abs(seedString.hashCode());
-
-        // Fonction pour sélectionner aléatoirement mais de manière constante
-        java.util.Random random = new java.util.Random(seed);
-
-        if (mainProduct.getCategoryId() == 2) { // PLAT
-            // Desserts
-            List<Product> desserts = availableProducts.stream()
-                    .filter(p -> p.getCategoryId() == 3)
-                    .collect(Collectors.toList());
-            if (!desserts.isEmpty()) {
-                suggestions.add(desserts.get(random.nextInt(desserts.size())));
-            }
+    /** Vérifie que l'index désigne chaque ligne à sa position, et elle seule (utilisé par les tests). */
+    synchronized boolean isIndexConsistent() {
+        if (lineIndex.size() != items.size()) return false;
+        for (int i = 0; i < items.size(); i++) {
+            if (!Integer.valueOf(i).equals(lineIndex.get(LineKey.of(items.get(i))))) return false;
+        }
+        return true;
+    }
 
-            // Boissons
-            List<Product> drinks = availableProducts.stream()
-                    .filter(p -> p.getCategoryId() == 4)
-                    .collect(Collectors.toList());
-            if (!drinks.isEmpty()) {
-                suggestions.add(drinks.get(random.nextInt(drinks.size())));
-            }
+    /**
+     * Abonne un écouteur ; ses notifications sont exécutées sur executor. Les événements survenus
+     * avant l'exécution de la livraison déjà planifiée y sont ajoutés au lieu d'en planifier une autre.
+     */
+    public void addListener(CartListener listener, Executor executor) {
+        listeners.add(new Registration(listener, executor));
+    }
+
+    public void removeListener(CartListener listener) {
+        listeners.removeIf(registration -> registration.listener == listener);
+    }
 
-            // Entrées
-            List<Product> entrees = availableProducts.stream()
-                    .filter(p -> p.getCategoryId() == 1)
-                    .collect(Collectors.toList());
-            if (!entrees.isEmpty()) {
-                suggestions.add(entrees.get(random.nextInt(entrees.size())));
+    /**
+     * Invalide l'instantané (le prochain lecteur en recopiera un nouveau) et publie le changement.
+     * Appelé sous le verrou ; rend les abonnés dont la livraison est à planifier, ce que l'appelant
+     * fait avec schedule() une fois le verrou relâché.
+     */
+    private List<Registration> changed(CartChange.Type type, int index, CartItem item) {
+        version++;
+        snapshot = null;
+        CartChange change = new CartChange(type, index, item, version);
+        List<Registration> toSchedule = List.of();
+        for (Registration registration : listeners) {
+            registration.pending.add(change);
+            if (!registration.scheduled) {
+                registration.scheduled = true;
+                if (toSchedule.isEmpty()) toSchedule = new ArrayList<>();
+                toSchedule.add(registration);
             }
         }
-        // ... autres catégories similaires
-
-        return suggestions.stream()
-                .distinct()
-                .limit(3)
-                .collect(Collectors.toList());
+        return toSchedule;
     }
 
+    private void schedule(List<Registration> toSchedule) {
+        for (Registration registration : toSchedule) {
+            registration.executor.execute(() -> deliver(registration));
+        }
+    }
 
-}
+    private void deliver(Registration registration) {
+        List<CartChange> changes;
+        CartSnapshot current;
+        synchronized (this) {
+            changes = registration.pending;
+            registration.pending = new ArrayList<>();
+            registration.scheduled = false;
+            current = getSnapshot();
+        }
+        registration.listener.onCartChanged(changes, current);
+    }
 
+    /** Prix unitaire arrondi au centime : toutes les sommes se font ensuite en entiers. */
+    private static long priceCents(Product product) {
+        return Math.round(product.getPrice() * 100);
+    }
 
+    // Suggestions pour un plat donné (moteur précalculé par version du catalogue)
+    public List<Product> getLimitedSuggestions(Product mainProduct) {
+        // Catalogue déjà indexé en mémoire (chargé au démarrage) : pas d'appel réseau ici
+        SuggestionEngine engine = SuggestionEngine.forCatalog(catalogCache.peekCatalog());
+        return engine.suggest(mainProduct, engine.cartMask(getItems()));
+    }
+}
@@ -0,0 +1,332 @@
+package org.example.services;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.example.model.Catalog;
+import org.example.model.Category;
+import org.example.model.Product;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Cache mémoire du catalogue (catégories et produits) placé devant ApiService.
+ * Une entrée est servie depuis la mémoire pendant sa durée de vie (TTL), puis revalidée
+ * par un GET conditionnel (ETag / Last-Modified) : un 304 prolonge simplement l'entrée.
+ * Au démarrage, le cache est amorcé depuis l'instantané disque (CatalogSnapshotStore) : ces
+ * entrées sont servies immédiatement puis rafraîchies en arrière-plan. Sans instantané (premier
+ * lancement), /products est lu en flux : l'écran du menu peut afficher les premiers produits
+ * avant la fin du téléchargement (followFirstLoad).
+ */
+public class CatalogCache {
+    private static CatalogCache instance;
+
+    /** Durée de vie configurable via -Dcatalog.cache.ttl.seconds (5 minutes par défaut). */
+    private static final long DEFAULT_TTL_SECONDS = 300;
+    /** Délai avant de retenter une revalidation échouée, via -Dcatalog.cache.retry.seconds (15 s par défaut). */
+    private static final long DEFAULT_RETRY_SECONDS = 15;
+
+    private static final ObjectReader CATEGORY_LIST = JsonCodecs.CATEGORY_LIST_READER;
+    private static final ObjectReader PRODUCT_LIST = JsonCodecs.PRODUCT_LIST_READER;
+
+    private final ApiService apiService;
+    private final long ttlNanos;
+    private final long retryNanos;
+    private final CatalogSnapshotStore snapshotStore;
+    private final Map<String, Entry<?>> entries = new ConcurrentHashMap<>();
+    private final Set<String> backgroundRefreshes = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean snapshotSavePending = new AtomicBoolean();
+
+    // Dernier catalogue indexé et les listes à partir desquelles il a été construit
+    private Catalog catalog = Catalog.empty();
+    private List<Category> catalogCategories = catalog.getCategories();
+    private List<Product> catalogProducts = catalog.getProducts();
+
+    // Premier chargement de /products lu en flux, tant qu'il est en cours (null sinon)
+    private ProductStream firstLoad;
+
+    // Compteurs exposés pour le suivi de l'efficacité du cache
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong revalidations = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+
+    /** Entrée immuable : remplacée à chaque rafraîchissement ou revalidation. */
+    private static class Entry<T> {
+        final T value;
+        final String etag;
+        final String lastModified;
+        final long validatedAt;
+        final boolean fromSnapshot;
+
+        Entry(T value, String etag, String lastModified, long validatedAt, boolean fromSnapshot) {
+            this.value = value;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.validatedAt = validatedAt;
+            this.fromSnapshot = fromSnapshot;
+        }
+    }
+
+    /**
+     * Premier chargement de /products en cours : produits déjà décodés et abonnés, à qui ils sont
+     * transmis par lots (un appel par lot et non par produit).
+     */
+    private static final class ProductStream {
+        private static final int BATCH_SIZE = 50;
+
+        private final List<Product> received = new ArrayList<>();
+        private final List<Consumer<List<Product>>> followers = new ArrayList<>();
+        private int published;
+        private boolean done;
+        CompletableFuture<ApiService.ConditionalResponse<List<Product>>> response;
+
+        synchronized void accept(Product product) {
+            received.add(product);
+            if (received.size() - published >= BATCH_SIZE) publish();
+        }
+
+        synchronized void finish() {
+            publish();
+            done = true;
+            followers.clear();
+        }
+
+        synchronized boolean follow(Consumer<List<Product>> follower) {
+            if (done) return false;
+            if (published > 0) follower.accept(List.copyOf(received.subList(0, published)));
+            followers.add(follower);
+            return true;
+        }
+
+        private void publish() {
+            if (published == received.size()) return;
+            List<Product> batch = List.copyOf(received.subList(published, received.size()));
+            published = received.size();
+            for (Consumer<List<Product>> follower : followers) follower.accept(batch);
+        }
+    }
+
+    private CatalogCache(ApiService apiService, CatalogSnapshotStore snapshotStore, long ttlSeconds, long retrySeconds) {
+        this.apiService = apiService;
+        this.snapshotStore = snapshotStore;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.retryNanos = TimeUnit.SECONDS.toNanos(Math.min(retrySeconds, ttlSeconds));
+    }
+
+    public static synchronized CatalogCache getInstance() {
+        if (instance == null) {
+            instance = new CatalogCache(new ApiService(), new CatalogSnapshotStore(CatalogSnapshotStore.defaultLocation()),
+                    Long.getLong("catalog.cache.ttl.seconds", DEFAULT_TTL_SECONDS),
+                    Long.getLong("catalog.cache.retry.seconds", DEFAULT_RETRY_SECONDS));
+        }
+        return instance;
+    }
+
+    /**
+     * Amorçage au lancement : relit l'instantané disque (sans réseau) puis lance le
+     * rafraîchissement des catégories et des produits en arrière-plan.
+     */
+    public void warmUp() {
+        for (Map.Entry<String, CatalogSnapshotStore.SnapshotEntry> saved : snapshotStore.load().entrySet()) {
+            try {
+                Object value = typeFor(saved.getKey()).readValue(saved.getValue().getBody());
+                entries.putIfAbsent(saved.getKey(), new Entry<>(value, saved.getValue().getEtag(),
+                        saved.getValue().getLastModified(), 0, true));
+            } catch (IOException | IllegalArgumentException e) {
+                e.printStackTrace();
+            }
+        }
+        refreshInBackground("/categories", CATEGORY_LIST);
+        refreshInBackground("/products", PRODUCT_LIST);
+    }
+
+    /**
+     * Catalogue complet indexé, construit à partir de /categories et /products.
+     * Tant que ces deux réponses ne changent pas, la même instance (même version) est renvoyée.
+     */
+    public CompletableFuture<Catalog> getCatalog() {
+        CompletableFuture<List<Category>> categories = getCategories();
+        CompletableFuture<List<Product>> products = getAllProducts();
+        if (categories.isDone() && products.isDone()) {
+            return CompletableFuture.completedFuture(catalogFor(categories.join(), products.join()));
+        }
+        return categories.thenCombine(products, this::catalogFor);
+    }
+
+    /** Dernier catalogue connu, sans attente ni appel réseau (vide si rien n'a encore été chargé). */
+    @SuppressWarnings("unchecked")
+    public Catalog peekCatalog() {
+        Entry<?> categories = entries.get("/categories");
+        Entry<?> products = entries.get("/products");
+        if (categories == null || products == null) {
+            synchronized (this) { return catalog; }
+        }
+        return catalogFor((List<Category>) categories.value, (List<Product>) products.value);
+    }
+
+    public CompletableFuture<List<Category>> getCategories() {
+        return get("/categories", CATEGORY_LIST);
+    }
+
+    /** Produits d'une catégorie, lus depuis le catalogue indexé (aucun appel réseau par catégorie). */
+    public CompletableFuture<List<Product>> getProductsByCategory(Long categoryId) {
+        return getCatalog().thenApply(current -> current.getProductsByCategory(categoryId));
+    }
+
+    public CompletableFuture<List<Product>> getAllProducts() {
+        return get("/products", PRODUCT_LIST);
+    }
+
+    /**
+     * Suit le premier chargement de /products lu en flux : onProducts reçoit d'abord les produits déjà
+     * décodés, puis chaque lot suivant, sur le thread d'E/S (l'appelant repasse sur le thread JavaFX).
+     * Retourne false si aucun chargement en flux n'est en cours : getCatalog suffit alors.
+     */
+    public boolean followFirstLoad(Consumer<List<Product>> onProducts) {
+        ProductStream stream;
+        synchronized (this) { stream = firstLoad; }
+        return stream != null && stream.follow(onProducts);
+    }
+
+    /** Résumé des compteurs du cache, journalisé à l'arrêt de la borne pour suivre son efficacité. */
+    public String describeStats() {
+        return "Cache catalogue : " + hits.get() + " succès, " + misses.get() + " absences, "
+                + revalidations.get() + " revalidations (" + notModified.get() + " inchangées), "
+                + ApiService.getCollapsedRequestCount() + " requêtes fusionnées";
+    }
+
+    private synchronized Catalog catalogFor(List<Category> categories, List<Product> products) {
+        if (categories != catalogCategories || products != catalogProducts) {
+            catalog = new Catalog(catalog.getVersion() + 1, categories, products);
+            catalogCategories = categories;
+            catalogProducts = products;
+        }
+        return catalog;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> get(String path, ObjectReader reader) {
+        Entry<T> entry = (Entry<T>) entries.get(path);
+        if (entry != null && (entry.fromSnapshot || System.nanoTime() - entry.validatedAt < ttlNanos)) {
+            hits.incrementAndGet();
+            // Copie issue du disque : servie tout de suite, la version réseau arrive en arrière-plan
+            if (entry.fromSnapshot) refreshInBackground(path, reader);
+            return CompletableFuture.completedFuture(entry.value);
+        }
+        if (entry == null) misses.incrementAndGet(); else revalidations.incrementAndGet();
+        return fetch(path, reader, entry);
+    }
+
+    /** Rafraîchit une entrée sans bloquer l'appelant ; un seul rafraîchissement par chemin à la fois. */
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> refreshInBackground(String path, ObjectReader reader) {
+        if (!backgroundRefreshes.add(path)) return new CompletableFuture<>();
+        revalidations.incrementAndGet();
+        return fetch(path, reader, (Entry<T>) entries.get(path))
+                .whenComplete((value, error) -> backgroundRefreshes.remove(path));
+    }
+
+    private static ObjectReader typeFor(String path) {
+        return path.startsWith("/categories") ? CATEGORY_LIST : PRODUCT_LIST;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> fetch(String path, ObjectReader reader, Entry<T> stale) {
+        // Les revalidations simultanées d'un même chemin sont fusionnées par ApiService (single-flight),
+        // le premier chargement des produits par streamFirstLoad
+        CompletableFuture<ApiService.ConditionalResponse<T>> request = stale == null && "/products".equals(path)
+                ? (CompletableFuture<ApiService.ConditionalResponse<T>>) (CompletableFuture<?>) streamFirstLoad()
+                : apiService.getConditionalAsync(path, stale != null ? stale.etag : null, stale != null ? stale.lastModified : null, reader);
+        return request
+                .handle((response, error) -> {
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                        // Disjoncteur ouvert : échec attendu, inutile de le journaliser à chaque appel
+                        if (!(cause instanceof ApiService.CircuitOpenException)) {
+                            System.err.println("Catalogue " + path + " indisponible : " + cause);
+                        }
+                        // Backend indisponible : on sert la dernière version connue plutôt qu'un écran d'erreur
+                        if (stale == null) return emptyValue();
+                        // Réinscrite comme validée il y a (TTL - délai) : servie depuis la mémoire jusqu'au
+                        // prochain essai, au lieu de relancer une requête à chaque appel
+                        entries.replace(path, stale, new Entry<>(stale.value, stale.etag, stale.lastModified,
+                                System.nanoTime() - ttlNanos + retryNanos, false));
+                        return stale.value;
+                    }
+                    if (response.isNotModified() && stale != null) {
+                        notModified.incrementAndGet();
+                        entries.put(path, new Entry<>(stale.value, stale.etag, stale.lastModified, System.nanoTime(), false));
+                        return stale.value;
+                    }
+                    entries.put(path, new Entry<>(response.getValue(), response.getEtag(), response.getLastModified(), System.nanoTime(), false));
+                    scheduleSnapshotSave();
+                    return response.getValue();
+                });
+    }
+
+    /** Lance (ou rejoint) la lecture en flux de /products quand aucune copie n'en existe encore. */
+    private synchronized CompletableFuture<ApiService.ConditionalResponse<List<Product>>> streamFirstLoad() {
+        ProductStream stream = firstLoad;
+        if (stream == null) {
+            ProductStream started = new ProductStream();
+            firstLoad = started;
+            started.response = apiService.streamProductsAsync("/products", started::accept)
+                    .whenComplete((response, error) -> {
+                        synchronized (this) {
+                            if (firstLoad == started) firstLoad = null;
+                        }
+                        started.finish();
+                    });
+            stream = started;
+        }
+        return stream.response.copy();
+    }
+
+    /**
+     * Liste vide partagée (celle du catalogue vide) : des échecs répétés rendent toujours la même
+     * instance et ne créent donc pas de nouvelle version du catalogue.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T emptyValue() {
+        return (T) List.of();
+    }
+
+    /** Sauvegarde l'état du cache sur disque ; les demandes rapprochées sont regroupées en une écriture. */
+    private void scheduleSnapshotSave() {
+        if (!snapshotSavePending.compareAndSet(false, true)) return;
+        try {
+            ApiService.persistenceExecutor().execute(this::saveSnapshot);
+        } catch (RejectedExecutionException e) {
+            // Application en cours d'arrêt : la prochaine demande retentera
+            snapshotSavePending.set(false);
+            System.err.println("Sauvegarde du catalogue non planifiée : " + e);
+        }
+    }
+
+    private void saveSnapshot() {
+        snapshotSavePending.set(false);
+        Map<String, CatalogSnapshotStore.SnapshotEntry> toSave = new LinkedHashMap<>();
+        for (Map.Entry<String, Entry<?>> entry : entries.entrySet()) {
+            Entry<?> value = entry.getValue();
+            toSave.put(entry.getKey(), new CatalogSnapshotStore.SnapshotEntry(
+                    JsonCodecs.MAPPER.valueToTree(value.value), value.etag, value.lastModified));
+        }
+        try {
+            snapshotStore.save(toSave);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
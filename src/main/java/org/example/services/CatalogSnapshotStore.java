@@ -0,0 +1,145 @@
+package org.example.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Instantané disque du dernier catalogue valide, relu au démarrage avant tout appel réseau.
+ * Format : une ligne d'en-tête "BORNE-CATALOG &lt;version&gt; &lt;crc32&gt; &lt;taille&gt;" suivie du JSON.
+ * L'écriture passe par un fichier temporaire renommé atomiquement : un arrêt brutal laisse
+ * toujours l'ancien ou le nouvel instantané, jamais un fichier tronqué.
+ */
+public class CatalogSnapshotStore {
+    private static final String MAGIC = "BORNE-CATALOG";
+    private static final int FORMAT_VERSION = 1;
+
+    private final Path file;
+    private final ObjectMapper mapper = JsonCodecs.MAPPER;
+
+    /** Entrée sauvegardée : corps JSON tel que renvoyé par l'API et ses validateurs HTTP. */
+    public static class SnapshotEntry {
+        private final JsonNode body;
+        private final String etag;
+        private final String lastModified;
+
+        public SnapshotEntry(JsonNode body, String etag, String lastModified) {
+            this.body = body;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        public JsonNode getBody() { return body; }
+        public String getEtag() { return etag; }
+        public String getLastModified() { return lastModified; }
+    }
+
+    public CatalogSnapshotStore(Path file) {
+        this.file = file;
+    }
+
+    /** Emplacement par défaut, surchargeable via -Dcatalog.snapshot.file. */
+    public static Path defaultLocation() {
+        String configured = System.getProperty("catalog.snapshot.file");
+        if (configured != null) return Paths.get(configured);
+        return Paths.get(System.getProperty("user.home"), ".borne", "catalog-snapshot.json");
+    }
+
+    /** Relit l'instantané ; renvoie une map vide s'il est absent, d'une autre version ou corrompu. */
+    public Map<String, SnapshotEntry> load() {
+        Map<String, SnapshotEntry> entries = new LinkedHashMap<>();
+        if (!Files.isRegularFile(file)) return entries;
+        try {
+            byte[] content = Files.readAllBytes(file);
+            int headerEnd = indexOf(content, (byte) '\n');
+            if (headerEnd < 0) return entries;
+            String[] header = new String(content, 0, headerEnd, StandardCharsets.US_ASCII).split(" ");
+            if (header.length != 4 || !MAGIC.equals(header[0]) || Integer.parseInt(header[1]) != FORMAT_VERSION) {
+                return entries;
+            }
+            long expectedCrc = Long.parseLong(header[2], 16);
+            int length = Integer.parseInt(header[3]);
+            if (content.length - headerEnd - 1 != length) return entries;
+
+            CRC32 crc = new CRC32();
+            crc.update(content, headerEnd + 1, length);
+            if (crc.getValue() != expectedCrc) {
+                System.err.println("Instantané du catalogue corrompu, ignoré : " + file);
+                return entries;
+            }
+
+            JsonNode root = mapper.readTree(new String(content, headerEnd + 1, length, StandardCharsets.UTF_8));
+            Iterator<Map.Entry<String, JsonNode>> fields = root.path("entries").fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                JsonNode node = field.getValue();
+                entries.put(field.getKey(), new SnapshotEntry(node.get("body"),
+                        node.hasNonNull("etag") ? node.get("etag").asText() : null,
+                        node.hasNonNull("lastModified") ? node.get("lastModified").asText() : null));
+            }
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            entries.clear();
+        }
+        return entries;
+    }
+
+    /** Écrit l'instantané de façon atomique (fichier temporaire + fsync + renommage). */
+    public void save(Map<String, SnapshotEntry> entries) throws IOException {
+        ObjectNode root = mapper.createObjectNode();
+        root.put("savedAt", System.currentTimeMillis());
+        ObjectNode entriesNode = root.putObject("entries");
+        for (Map.Entry<String, SnapshotEntry> entry : entries.entrySet()) {
+            ObjectNode node = entriesNode.putObject(entry.getKey());
+            node.put("etag", entry.getValue().getEtag());
+            node.put("lastModified", entry.getValue().getLastModified());
+            node.set("body", entry.getValue().getBody());
+        }
+        byte[] payload = mapper.writeValueAsBytes(root);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        byte[] header = (MAGIC + " " + FORMAT_VERSION + " " + Long.toHexString(crc.getValue()) + " " + payload.length + "\n")
+                .getBytes(StandardCharsets.US_ASCII);
+
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, "catalog-", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.allocate(header.length + payload.length).put(header).put(payload);
+                buffer.flip();
+                while (buffer.hasRemaining()) channel.write(buffer);
+                channel.force(true);
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static int indexOf(byte[] content, byte value) {
+        for (int i = 0; i < content.length; i++) {
+            if (content[i] == value) return i;
+        }
+        return -1;
+    }
+}
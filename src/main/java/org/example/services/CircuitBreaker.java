@@ -0,0 +1,107 @@
+package org.example.services;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Disjoncteur protégeant le backend.
+ * Il s'ouvre après un nombre d'échecs (ou d'appels trop lents) consécutifs : les appels échouent
+ * alors immédiatement et les appelants se rabattent sur leurs données en cache. Une sonde est
+ * relancée en arrière-plan après la durée d'ouverture (état semi-ouvert) et referme le
+ * disjoncteur dès qu'elle réussit.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long slowCallThresholdNanos;
+    private final long openDurationMs;
+    private final BooleanSupplier probe;
+    private final ScheduledExecutorService scheduler;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+
+    public CircuitBreaker(int failureThreshold, long slowCallThresholdMs, long openDurationMs, BooleanSupplier probe) {
+        this("API", failureThreshold, slowCallThresholdMs, openDurationMs, probe);
+    }
+
+    /** name : libellé du service protégé, repris dans les journaux et le nom du thread de sonde. */
+    public CircuitBreaker(String name, int failureThreshold, long slowCallThresholdMs, long openDurationMs, BooleanSupplier probe) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.slowCallThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowCallThresholdMs);
+        this.openDurationMs = openDurationMs;
+        this.probe = probe;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "circuit-probe-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Les appels ne passent que disjoncteur fermé ; en semi-ouvert seule la sonde interroge le backend. */
+    public synchronized boolean allowRequest() {
+        return state == State.CLOSED;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /** Appel terminé : un appel trop lent compte comme un échec. */
+    public void recordCall(long durationNanos) {
+        if (durationNanos > slowCallThresholdNanos) {
+            recordFailure();
+        } else {
+            synchronized (this) {
+                consecutiveFailures = 0;
+            }
+        }
+    }
+
+    public void recordFailure() {
+        synchronized (this) {
+            consecutiveFailures++;
+            if (state != State.CLOSED || consecutiveFailures < failureThreshold) return;
+            state = State.OPEN;
+        }
+        System.err.println("Disjoncteur " + name + " ouvert après " + failureThreshold + " échecs consécutifs");
+        scheduleProbe();
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void scheduleProbe() {
+        if (scheduler.isShutdown()) return;
+        scheduler.schedule(this::runProbe, openDurationMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void runProbe() {
+        synchronized (this) {
+            state = State.HALF_OPEN;
+        }
+        boolean healthy;
+        try {
+            healthy = probe.getAsBoolean();
+        } catch (RuntimeException e) {
+            healthy = false;
+        }
+        synchronized (this) {
+            if (healthy) {
+                state = State.CLOSED;
+                consecutiveFailures = 0;
+            } else {
+                state = State.OPEN;
+            }
+        }
+        if (healthy) System.err.println("Disjoncteur " + name + " refermé");
+        else scheduleProbe();
+    }
+}
@@ -0,0 +1,342 @@
+package org.example.services;
+
+import org.example.model.Order;
+import org.example.model.OrderItem;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Recommandations apprises sur l'historique local des commandes.
+ * Compte, pour chaque paire de produits, combien de fois ils ont été commandés ensemble
+ * (matrice creuse symétrique à clés primitives), avec une décroissance exponentielle dans le
+ * temps : une commande récente pèse plus qu'une ancienne. La taille est bornée ; les paires
+ * les plus faibles sont élaguées quand la limite est atteinte.
+ * L'apprentissage (et l'élagage) se fait sur un thread dédié, jamais sur le thread JavaFX. Le
+ * modèle est sauvegardé sur disque après chaque lot de commandes apprises (-Dreco.model.file) et
+ * relu au démarrage : un redémarrage de la borne ne perd pas ce qui a été appris.
+ */
+public class CoOccurrenceRecommender {
+    private static CoOccurrenceRecommender instance;
+
+    private static final long DEFAULT_HALF_LIFE_MS = 14L * 24 * 3600 * 1000;
+    private static final int DEFAULT_MAX_CELLS = 200_000;
+    // Au-delà, seuls les premiers produits distincts d'une commande sont appariés (coût en n²)
+    private static final int MAX_ITEMS_PER_ORDER = 32;
+    // Renormalisation des poids avant qu'ils ne débordent la précision d'un float
+    private static final double RESCALE_LIMIT = 1e12;
+    private static final byte[] MAGIC = "BORNRECO".getBytes(StandardCharsets.US_ASCII);
+    private static final int FORMAT_VERSION = 1;
+
+    private final double decayTauMs;
+    private final int maxCells;
+    private final Map<Integer, IntFloatMap> rows = new HashMap<>();
+    private long epochMs;
+    private int cells;
+    // Incrémentée à chaque modification du modèle ; lue sans verrou par les caches des consommateurs
+    private volatile long generation;
+
+    // Fichier du modèle (null : pas de persistance) ; chargement, apprentissage et sauvegarde sur ce thread
+    private final Path file;
+    private final ExecutorService learner;
+    private final AtomicBoolean savePending = new AtomicBoolean();
+
+    public CoOccurrenceRecommender(long halfLifeMs, int maxCells) {
+        this(halfLifeMs, maxCells, null);
+    }
+
+    public CoOccurrenceRecommender(long halfLifeMs, int maxCells, Path file) {
+        this.decayTauMs = halfLifeMs / Math.log(2);
+        this.maxCells = maxCells;
+        this.epochMs = System.currentTimeMillis();
+        this.file = file;
+        this.learner = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reco-learner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (file != null) learner.execute(this::load);
+    }
+
+    public static synchronized CoOccurrenceRecommender getInstance() {
+        if (instance == null) {
+            instance = new CoOccurrenceRecommender(
+                    Long.getLong("reco.half.life.ms", DEFAULT_HALF_LIFE_MS),
+                    Integer.getInteger("reco.max.cells", DEFAULT_MAX_CELLS),
+                    defaultLocation());
+        }
+        return instance;
+    }
+
+    /** Emplacement par défaut du modèle, surchargeable via -Dreco.model.file. */
+    public static Path defaultLocation() {
+        String configured = System.getProperty("reco.model.file");
+        if (configured != null) return Paths.get(configured);
+        return Paths.get(System.getProperty("user.home"), ".borne", "reco-model.bin");
+    }
+
+    /** Termine l'apprentissage et la sauvegarde en cours (appelé à l'arrêt de l'application). */
+    public static synchronized void shutdown() {
+        if (instance != null) instance.close();
+    }
+
+    void close() {
+        learner.shutdown();
+        try {
+            learner.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Apprend une commande soumise, en tâche de fond (mise à jour incrémentale puis sauvegarde). */
+    public void recordOrder(Order order) {
+        long timestampMs = System.currentTimeMillis();
+        try {
+            learner.execute(() -> {
+                recordOrder(order, timestampMs);
+                scheduleSave();
+            });
+        } catch (RejectedExecutionException e) {
+            // Application en cours d'arrêt : commande non apprise
+            System.err.println("Commande non apprise par les recommandations : " + e);
+        }
+    }
+
+    public synchronized void recordOrder(Order order, long timestampMs) {
+        if (order.getItems() == null) return;
+        int[] productIds = distinctProductIds(order);
+        if (productIds.length < 2) return;
+
+        // Poids "gonflé" : plutôt que de faire décroître toutes les paires, les nouvelles pèsent plus
+        double weight = Math.exp((timestampMs - epochMs) / decayTauMs);
+        if (weight > RESCALE_LIMIT) {
+            rescale(timestampMs);
+            weight = Math.exp((timestampMs - epochMs) / decayTauMs);
+        }
+        float increment = (float) weight;
+        for (int i = 0; i < productIds.length; i++) {
+            for (int j = 0; j < productIds.length; j++) {
+                if (i == j) continue;
+                IntFloatMap row = rows.computeIfAbsent(productIds[i], id -> new IntFloatMap(8));
+                if (row.add(productIds[j], increment)) cells++;
+            }
+        }
+        if (cells > maxCells) prune();
+        generation++;
+    }
+
+    /** Les k produits les plus souvent commandés avec productId, du plus fort au plus faible. */
+    public synchronized int[] topComplements(long productId, int k) {
+        IntFloatMap row = rows.get((int) productId);
+        if (row == null || k <= 0) return new int[0];
+        int[] ids = new int[k];
+        float[] scores = new float[k];
+        int[] count = {0};
+        // Insertion dans un petit tableau trié : k est petit, la ligne est parcourue une seule fois
+        row.forEach((id, score) -> {
+            int n = count[0];
+            if (n == k && score <= scores[k - 1]) return;
+            int pos = n < k ? n : k - 1;
+            while (pos > 0 && scores[pos - 1] < score) {
+                ids[pos] = ids[pos - 1];
+                scores[pos] = scores[pos - 1];
+                pos--;
+            }
+            ids[pos] = id;
+            scores[pos] = score;
+            if (n < k) count[0]++;
+        });
+        return Arrays.copyOf(ids, count[0]);
+    }
+
+    /**
+     * Génération du modèle, qui change à chaque commande apprise et à la relecture du fichier : un
+     * résultat de topComplements reste valable tant qu'elle n'a pas changé. Lecture sans verrou.
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /** Nombre de paires (cellules non nulles) actuellement mémorisées. */
+    public synchronized int getCellCount() {
+        return cells;
+    }
+
+    private static int[] distinctProductIds(Order order) {
+        int[] ids = new int[Math.min(order.getItems().size(), MAX_ITEMS_PER_ORDER)];
+        int count = 0;
+        for (OrderItem item : order.getItems()) {
+            if (count == ids.length) break;
+            boolean seen = false;
+            for (int i = 0; i < count && !seen; i++) seen = ids[i] == item.getProductId();
+            if (!seen) ids[count++] = item.getProductId();
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    /** Ramène les poids à l'échelle de l'instant présent (les écarts relatifs sont conservés). */
+    private void rescale(long nowMs) {
+        float factor = (float) Math.exp(-(nowMs - epochMs) / decayTauMs);
+        for (IntFloatMap row : rows.values()) row.scale(factor);
+        epochMs = nowMs;
+    }
+
+    /** Sauvegardes regroupées : plusieurs commandes apprises à la suite donnent une seule écriture. */
+    private void scheduleSave() {
+        if (file == null || !savePending.compareAndSet(false, true)) return;
+        try {
+            learner.execute(this::save);
+        } catch (RejectedExecutionException e) {
+            // Arrêt en cours : on est sur le thread d'apprentissage, qui vide sa file ; sauvegarde immédiate
+            save();
+        }
+    }
+
+    private void save() {
+        savePending.set(false);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            synchronized (this) {
+                out.write(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(epochMs);
+                out.writeInt(rows.size());
+                for (Map.Entry<Integer, IntFloatMap> row : rows.entrySet()) {
+                    out.writeInt(row.getKey());
+                    out.writeInt(row.getValue().size());
+                    IOException[] failure = new IOException[1];
+                    row.getValue().forEach((id, score) -> {
+                        try {
+                            out.writeInt(id);
+                            out.writeFloat(score);
+                        } catch (IOException e) {
+                            failure[0] = e;
+                        }
+                    });
+                    if (failure[0] != null) throw failure[0];
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        try {
+            Path dir = file.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, "reco-", ".tmp");
+            try {
+                Files.write(tmp, bytes.toByteArray());
+                try {
+                    Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Relit le modèle sauvegardé ; un fichier absent, d'un autre format, tronqué ou incohérent est ignoré.
+     * Les tailles lues sont vérifiées avant toute allocation : un fichier corrompu ne peut pas
+     * réclamer plus de cellules que la limite du modèle ni que le fichier n'en contient.
+     */
+    private void load() {
+        if (!Files.isRegularFile(file)) return;
+        Map<Integer, IntFloatMap> loaded = new HashMap<>();
+        int loadedCells = 0;
+        long loadedEpochMs;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            // Chaque ligne occupe au moins 8 octets (produit, taille), chaque cellule 8 (produit, score)
+            long remaining = Files.size(file) - MAGIC.length - 16;
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC) || in.readInt() != FORMAT_VERSION) return;
+            loadedEpochMs = in.readLong();
+            int rowCount = in.readInt();
+            if (rowCount < 0 || rowCount > maxCells || rowCount * 8L > remaining) {
+                System.err.println("Modèle de recommandations incohérent (" + rowCount + " lignes), ignoré : " + file);
+                return;
+            }
+            for (int r = 0; r < rowCount; r++) {
+                int productId = in.readInt();
+                int size = in.readInt();
+                remaining -= 8;
+                if (size < 0 || size > maxCells - loadedCells || size * 8L > remaining) {
+                    System.err.println("Modèle de recommandations incohérent (ligne de " + size + " paires), ignoré : " + file);
+                    return;
+                }
+                remaining -= size * 8L;
+                IntFloatMap row = new IntFloatMap(Math.max(8, size));
+                for (int c = 0; c < size; c++) {
+                    if (row.add(in.readInt(), in.readFloat())) loadedCells++;
+                }
+                if (loaded.put(productId, row) != null) {
+                    System.err.println("Modèle de recommandations incohérent (produit " + productId + " en double), ignoré : " + file);
+                    return;
+                }
+            }
+        } catch (EOFException e) {
+            System.err.println("Modèle de recommandations tronqué, ignoré : " + file);
+            return;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        synchronized (this) {
+            rows.clear();
+            rows.putAll(loaded);
+            cells = loadedCells;
+            epochMs = loadedEpochMs;
+            generation++;
+        }
+    }
+
+    /**
+     * Élague les paires les plus faibles jusqu'à revenir aux trois quarts de la limite. Les paires
+     * sous le seuil sont supprimées ; parmi celles qui l'égalent, seul le surplus l'est, pour ne pas
+     * vider la matrice quand beaucoup de paires ont le même poids (commandes d'un même instant).
+     */
+    private void prune() {
+        int target = maxCells * 3 / 4;
+        if (cells <= target) return;
+        float[] all = new float[cells];
+        int[] n = {0};
+        for (IntFloatMap row : rows.values()) row.forEach((id, score) -> all[n[0]++] = score);
+        Arrays.sort(all, 0, n[0]);
+        float threshold = all[n[0] - target];
+        cells = 0;
+        for (IntFloatMap row : rows.values()) {
+            row.removeBelow(threshold);
+            cells += row.size();
+        }
+        // Départage des ex aequo au seuil : on en retire juste assez pour atteindre la cible
+        for (IntFloatMap row : rows.values()) {
+            if (cells <= target) break;
+            cells -= row.removeEqual(threshold, cells - target);
+        }
+        rows.values().removeIf(row -> row.size() == 0);
+    }
+}
@@ -0,0 +1,130 @@
+package org.example.services;
+
+import java.util.Arrays;
+
+/**
+ * Table de hachage à adressage ouvert int -> float, sans objet par entrée (pas de boxing).
+ * Sert de ligne creuse dans la matrice de co-occurrence du CoOccurrenceRecommender.
+ */
+final class IntFloatMap {
+    private static final int FREE = Integer.MIN_VALUE;
+
+    interface Visitor {
+        void visit(int key, float value);
+    }
+
+    private int[] keys;
+    private float[] values;
+    private int size;
+
+    IntFloatMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    int size() {
+        return size;
+    }
+
+    float get(int key) {
+        int slot = find(key);
+        return slot >= 0 ? values[slot] : 0f;
+    }
+
+    /** Ajoute delta à la valeur de key (créée à 0 si absente) ; retourne true si l'entrée est nouvelle. */
+    boolean add(int key, float delta) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE) {
+            if (keys[slot] == key) {
+                values[slot] += delta;
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = delta;
+        if (++size * 4 > keys.length * 3) rehash(keys.length << 1, Float.NEGATIVE_INFINITY);
+        return true;
+    }
+
+    /** Multiplie toutes les valeurs (décroissance temporelle appliquée en bloc). */
+    void scale(float factor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE) values[i] *= factor;
+        }
+    }
+
+    /** Supprime les entrées strictement inférieures au seuil ; retourne le nombre d'entrées supprimées. */
+    int removeBelow(float threshold) {
+        int before = size;
+        rehash(keys.length, threshold);
+        return before - size;
+    }
+
+    /** Supprime au plus limit entrées valant exactement value ; retourne le nombre d'entrées supprimées. */
+    int removeEqual(float value, int limit) {
+        int[] oldKeys = keys;
+        float[] oldValues = values;
+        allocate(keys.length);
+        int removed = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == FREE) continue;
+            if (removed < limit && oldValues[i] == value) {
+                removed++;
+                continue;
+            }
+            insert(oldKeys[i], oldValues[i]);
+        }
+        return removed;
+    }
+
+    void forEach(Visitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE) visitor.visit(keys[i], values[i]);
+        }
+    }
+
+    private int find(int key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE) {
+            if (keys[slot] == key) return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /** Recopie dans une table de la capacité donnée, en ne gardant que les valeurs >= minValue. */
+    private void rehash(int capacity, float minValue) {
+        int[] oldKeys = keys;
+        float[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == FREE || oldValues[i] < minValue) continue;
+            insert(oldKeys[i], oldValues[i]);
+        }
+    }
+
+    /** Insère une clé absente de la table (recopie interne, sans contrôle du taux de remplissage). */
+    private void insert(int key, float value) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE) slot = (slot + 1) & mask;
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new float[capacity];
+        Arrays.fill(keys, FREE);
+        size = 0;
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.services;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.example.model.Category;
+import org.example.model.Order;
+import org.example.model.Product;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Lecteurs et écrivains JSON préconstruits, partagés par tous les services.
+ * Les ObjectReader/ObjectWriter sont immuables et thread-safe : le désérialiseur de chaque
+ * type n'est résolu qu'une fois, au lieu d'un nouveau TypeReference à chaque appel.
+ */
+public final class JsonCodecs {
+
+    public static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static final ObjectReader CATEGORY_LIST_READER = MAPPER.readerFor(new TypeReference<List<Category>>(){});
+    public static final ObjectReader PRODUCT_LIST_READER = MAPPER.readerFor(new TypeReference<List<Product>>(){});
+    public static final ObjectReader PRODUCT_READER = MAPPER.readerFor(Product.class);
+    public static final ObjectReader ORDER_READER = MAPPER.readerFor(Order.class);
+    public static final ObjectWriter ORDER_WRITER = MAPPER.writerFor(Order.class);
+    public static final ObjectReader MAP_READER = MAPPER.readerFor(new TypeReference<Map<String, Object>>(){});
+
+    private JsonCodecs() {}
+
+    /**
+     * Lit un tableau JSON de produits en flux et transmet chaque produit dès qu'il est décodé,
+     * sans attendre la fin du tableau. Retourne le nombre de produits lus.
+     */
+    public static int streamProducts(InputStream in, Consumer<Product> onProduct) throws IOException {
+        int count = 0;
+        try (JsonParser parser = MAPPER.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Tableau de produits attendu, reçu : " + parser.currentToken());
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                onProduct.accept(PRODUCT_READER.readValue(parser));
+                count++;
+            }
+        }
+        return count;
+    }
+}
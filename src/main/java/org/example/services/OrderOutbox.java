@@ -0,0 +1,251 @@
+package org.example.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.example.model.Order;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Boîte d'envoi durable des commandes.
+ * Chaque commande est ajoutée (fsync) à un journal local avec une clé d'idempotence générée
+ * côté borne, puis envoyée en arrière-plan avec un nombre d'envois simultanés borné et des
+ * nouvelles tentatives espacées (backoff exponentiel avec jitter). Le journal est rejoué au
+ * démarrage : aucune commande n'est perdue si le backend ou la borne tombe entre-temps.
+ */
+public class OrderOutbox {
+    private static OrderOutbox instance;
+
+    private static final int MAX_CONCURRENT_SENDS = 2;
+    private static final long BASE_RETRY_DELAY_MS = 1_000;
+    private static final long MAX_RETRY_DELAY_MS = 60_000;
+
+    private static final String PENDING = "PENDING";
+    private static final String SENT = "SENT";
+    private static final String REJECTED = "REJECTED";
+
+    private final Path file;
+    private final ApiService apiService;
+    private final ObjectMapper mapper = JsonCodecs.MAPPER;
+    private final Map<String, PendingOrder> pending = new LinkedHashMap<>();
+    private final ScheduledExecutorService sender;
+    private FileChannel journal;
+
+    /** Commande en attente d'acquittement par le backend. */
+    public static class PendingOrder {
+        private final String idempotencyKey;
+        private final Order order;
+        private final long createdAt;
+        private final CompletableFuture<Integer> serverOrderId = new CompletableFuture<>();
+        private int attempts;
+
+        PendingOrder(String idempotencyKey, Order order, long createdAt) {
+            this.idempotencyKey = idempotencyKey;
+            this.order = order;
+            this.createdAt = createdAt;
+        }
+
+        public String getIdempotencyKey() { return idempotencyKey; }
+        public Order getOrder() { return order; }
+        public long getCreatedAt() { return createdAt; }
+
+        /** Numéro provisoire affiché au client en attendant le numéro définitif du backend. */
+        public String getProvisionalNumber() {
+            return idempotencyKey.substring(0, 4).toUpperCase();
+        }
+
+        /** Complété avec le numéro de commande du backend, ou en erreur si la commande est refusée. */
+        public CompletableFuture<Integer> getServerOrderId() { return serverOrderId; }
+    }
+
+    private OrderOutbox(Path file, ApiService apiService) {
+        this.file = file;
+        this.apiService = apiService;
+        AtomicInteger counter = new AtomicInteger();
+        this.sender = Executors.newScheduledThreadPool(MAX_CONCURRENT_SENDS, runnable -> {
+            Thread thread = new Thread(runnable, "order-outbox-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static synchronized OrderOutbox getInstance() {
+        if (instance == null) {
+            String configured = System.getProperty("order.outbox.file");
+            Path file = configured != null ? Paths.get(configured)
+                    : Paths.get(System.getProperty("user.home"), ".borne", "order-outbox.log");
+            instance = new OrderOutbox(file, new ApiService());
+            instance.recover();
+        }
+        return instance;
+    }
+
+    /**
+     * Enregistre durablement la commande puis planifie son envoi.
+     * Retourne dès que l'écriture disque est faite : le client peut être confirmé immédiatement.
+     */
+    public PendingOrder submit(Order order) throws IOException {
+        PendingOrder entry = new PendingOrder(UUID.randomUUID().toString().replace("-", ""), order, System.currentTimeMillis());
+        ObjectNode record = record(PENDING, entry.getIdempotencyKey());
+        record.put("createdAt", entry.getCreatedAt());
+        record.set("order", mapper.valueToTree(order));
+        synchronized (this) {
+            append(record);
+            pending.put(entry.getIdempotencyKey(), entry);
+        }
+        sender.execute(() -> send(entry));
+        return entry;
+    }
+
+    /** Nombre de commandes enregistrées localement mais pas encore acquittées. */
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    public static synchronized void shutdown() {
+        if (instance == null) return;
+        instance.sender.shutdownNow();
+        synchronized (instance) {
+            try {
+                if (instance.journal != null) instance.journal.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void send(PendingOrder entry) {
+        try {
+            int orderId = apiService.submitOrder(entry.getOrder(), entry.getIdempotencyKey());
+            acknowledge(entry, SENT, orderId);
+            entry.getServerOrderId().complete(orderId);
+        } catch (ApiService.OrderRejectedException e) {
+            acknowledge(entry, REJECTED, e.getStatus());
+            entry.getServerOrderId().completeExceptionally(e);
+        } catch (IOException | RuntimeException e) {
+            // Erreur transitoire : nouvelle tentative avec backoff exponentiel et jitter ("full jitter" borné)
+            entry.attempts++;
+            long ceiling = Math.min(MAX_RETRY_DELAY_MS, BASE_RETRY_DELAY_MS << Math.min(entry.attempts, 16));
+            long delay = ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+            System.err.println("Envoi de la commande " + entry.getProvisionalNumber() + " échoué (" + e.getMessage()
+                    + "), nouvel essai dans " + delay + " ms");
+            if (!sender.isShutdown()) sender.schedule(() -> send(entry), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void acknowledge(PendingOrder entry, String type, int value) {
+        ObjectNode record = record(type, entry.getIdempotencyKey());
+        record.put(SENT.equals(type) ? "orderId" : "status", value);
+        try {
+            append(record);
+        } catch (IOException e) {
+            // Au pire la commande sera renvoyée au redémarrage : la clé d'idempotence évite le doublon
+            e.printStackTrace();
+        }
+        pending.remove(entry.getIdempotencyKey());
+    }
+
+    /** Rejoue le journal, le compacte (seules les commandes non acquittées sont conservées) et relance les envois. */
+    private synchronized void recover() {
+        Map<String, PendingOrder> recovered = new LinkedHashMap<>();
+        List<JsonNode> pendingRecords = new ArrayList<>();
+        if (Files.isRegularFile(file)) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) continue;
+                    JsonNode node;
+                    try {
+                        node = mapper.readTree(line);
+                    } catch (IOException e) {
+                        // Dernière ligne tronquée par un arrêt brutal : ignorée
+                        continue;
+                    }
+                    String key = node.path("key").asText();
+                    if (PENDING.equals(node.path("type").asText())) {
+                        Order order = JsonCodecs.ORDER_READER.readValue(node.get("order"));
+                        recovered.put(key, new PendingOrder(key, order, node.path("createdAt").asLong()));
+                        pendingRecords.add(node);
+                    } else {
+                        recovered.remove(key);
+                        pendingRecords.removeIf(r -> key.equals(r.path("key").asText()));
+                    }
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        try {
+            compact(pendingRecords);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        pending.putAll(recovered);
+        for (PendingOrder entry : recovered.values()) {
+            sender.execute(() -> send(entry));
+        }
+    }
+
+    private void compact(List<JsonNode> records) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, "outbox-", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (JsonNode record : records) write(channel, record);
+                channel.force(true);
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private ObjectNode record(String type, String key) {
+        ObjectNode record = mapper.createObjectNode();
+        record.put("type", type);
+        record.put("key", key);
+        return record;
+    }
+
+    /** Ajoute une ligne au journal et force son écriture sur disque avant de rendre la main. */
+    private void append(JsonNode record) throws IOException {
+        if (journal == null || !journal.isOpen()) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            journal = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        write(journal, record);
+        journal.force(false);
+    }
+
+    private void write(FileChannel channel, JsonNode record) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap((mapper.writeValueAsString(record) + "\n").getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) channel.write(buffer);
+    }
+}
@@ -0,0 +1,280 @@
+package org.example.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Cache disque des images produit non embarquées, téléchargées depuis le backend.
+ * Les fichiers sont adressés par leur contenu (SHA-256) : une image inchangée n'est jamais
+ * réécrite et deux URL au même contenu partagent un fichier. Un index (URL -> empreinte,
+ * ETag, Last-Modified) permet de revalider par GET conditionnel une fois la durée de vie
+ * écoulée (-Dimage.remote.ttl.seconds) : un 304 ne retélécharge rien.
+ * Une URL en échec n'est pas redemandée avant un délai qui double à chaque nouvel échec
+ * (-Dimage.remote.retry.seconds, 30 s au départ, 10 min au plus).
+ */
+public class RemoteImageCache {
+    private static RemoteImageCache instance;
+
+    private static final long DEFAULT_TTL_SECONDS = 3600;
+    private static final String INDEX_FILE = "index.json";
+    private static final long MAX_RETRY_DELAY_MS = TimeUnit.MINUTES.toMillis(10);
+
+    private final ApiService apiService;
+    private final Path directory;
+    private final long ttlMillis;
+    private final long retryDelayMillis;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Set<String> backgroundRevalidations = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean indexSavePending = new AtomicBoolean();
+    // URL en échec -> prochain essai autorisé ; en mémoire seulement, un redémarrage retente tout
+    private final Map<String, Failure> failures = new ConcurrentHashMap<>();
+
+    /** Entrée immuable : remplacée à chaque téléchargement ou revalidation. */
+    private static class Entry {
+        final String sha256;
+        final String etag;
+        final String lastModified;
+        final long validatedAt;
+
+        Entry(String sha256, String etag, String lastModified, long validatedAt) {
+            this.sha256 = sha256;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.validatedAt = validatedAt;
+        }
+    }
+
+    private static class Failure {
+        final int attempts;
+        final long retryAt;
+
+        Failure(int attempts, long retryAt) {
+            this.attempts = attempts;
+            this.retryAt = retryAt;
+        }
+    }
+
+    private RemoteImageCache(ApiService apiService, Path directory, long ttlSeconds, long retrySeconds) {
+        this.apiService = apiService;
+        this.directory = directory;
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        this.retryDelayMillis = TimeUnit.SECONDS.toMillis(retrySeconds);
+        loadIndex();
+    }
+
+    public static synchronized RemoteImageCache getInstance() {
+        if (instance == null) {
+            instance = new RemoteImageCache(new ApiService(), defaultLocation(),
+                    Long.getLong("image.remote.ttl.seconds", DEFAULT_TTL_SECONDS),
+                    Long.getLong("image.remote.retry.seconds", 30));
+        }
+        return instance;
+    }
+
+    /** Dossier par défaut, surchargeable via -Dimage.remote.dir. */
+    public static Path defaultLocation() {
+        String configured = System.getProperty("image.remote.dir");
+        if (configured != null) return Paths.get(configured);
+        return Paths.get(System.getProperty("user.home"), ".borne", "images");
+    }
+
+    /**
+     * Fichier local déjà connu pour cette image, sans attendre le réseau (null sinon).
+     * Une entrée expirée est servie quand même et revalidée en arrière-plan.
+     */
+    public Path peekLocal(String imageUrl) {
+        String url = ApiService.imageUrl(imageUrl);
+        Entry entry = entries.get(url);
+        if (entry == null) return null;
+        Path file = fileFor(entry.sha256);
+        if (!Files.isRegularFile(file)) return null;
+        if (isExpired(entry) && !isBackingOff(url) && backgroundRevalidations.add(url)) {
+            fetch(url, entry).whenComplete((path, error) -> backgroundRevalidations.remove(url));
+        }
+        return file;
+    }
+
+    /** Fichier local de l'image, téléchargé ou revalidé si nécessaire. */
+    public CompletableFuture<Path> get(String imageUrl) {
+        String url = ApiService.imageUrl(imageUrl);
+        Entry entry = entries.get(url);
+        boolean haveFile = entry != null && Files.isRegularFile(fileFor(entry.sha256));
+        if (haveFile && (!isExpired(entry) || isBackingOff(url))) {
+            return CompletableFuture.completedFuture(fileFor(entry.sha256));
+        }
+        // Échec récent : pas de nouvel appel avant la fin du délai
+        if (isBackingOff(url)) {
+            return CompletableFuture.failedFuture(new IOException("Image en échec, nouvel essai différé : " + url));
+        }
+        return fetch(url, entry);
+    }
+
+    private CompletableFuture<Path> fetch(String url, Entry known) {
+        boolean haveFile = known != null && Files.isRegularFile(fileFor(known.sha256));
+        // Sans fichier local, une revalidation n'a pas de sens : téléchargement complet
+        String etag = haveFile ? known.etag : null;
+        String lastModified = haveFile ? known.lastModified : null;
+        return apiService.downloadImageAsync(url, etag, lastModified).thenApply(response -> {
+            failures.remove(url);
+            if (response.isNotModified()) {
+                entries.put(url, new Entry(known.sha256, known.etag, known.lastModified, System.currentTimeMillis()));
+                scheduleIndexSave();
+                return fileFor(known.sha256);
+            }
+            try {
+                String sha256 = store(response.getValue());
+                entries.put(url, new Entry(sha256, response.getEtag(), response.getLastModified(), System.currentTimeMillis()));
+                if (known != null && !known.sha256.equals(sha256)) deleteIfUnreferenced(known.sha256);
+                scheduleIndexSave();
+                return fileFor(sha256);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }).exceptionally(error -> {
+            recordFailure(url);
+            // Backend injoignable : la dernière version connue reste affichée
+            if (haveFile) return fileFor(known.sha256);
+            throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+        });
+    }
+
+    /** Écrit le contenu sous son empreinte (fichier temporaire puis renommage) ; rien à faire s'il existe déjà. */
+    private String store(byte[] content) throws IOException {
+        String sha256 = sha256(content);
+        Path target = fileFor(sha256);
+        if (Files.isRegularFile(target)) return sha256;
+        Files.createDirectories(directory);
+        Path tmp = Files.createTempFile(directory, "image-", ".tmp");
+        try {
+            Files.write(tmp, content);
+            moveAtomically(tmp, target);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return sha256;
+    }
+
+    private void deleteIfUnreferenced(String sha256) {
+        for (Entry entry : entries.values()) {
+            if (entry.sha256.equals(sha256)) return;
+        }
+        try {
+            Files.deleteIfExists(fileFor(sha256));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void recordFailure(String url) {
+        failures.compute(url, (key, previous) -> {
+            int attempts = previous != null ? previous.attempts + 1 : 1;
+            long delay = Math.min(MAX_RETRY_DELAY_MS, retryDelayMillis << Math.min(attempts - 1, 20));
+            return new Failure(attempts, System.currentTimeMillis() + delay);
+        });
+    }
+
+    private boolean isBackingOff(String url) {
+        Failure failure = failures.get(url);
+        return failure != null && System.currentTimeMillis() < failure.retryAt;
+    }
+
+    private boolean isExpired(Entry entry) {
+        return System.currentTimeMillis() - entry.validatedAt > ttlMillis;
+    }
+
+    private Path fileFor(String sha256) {
+        return directory.resolve(sha256 + ".img");
+    }
+
+    private void loadIndex() {
+        Path file = directory.resolve(INDEX_FILE);
+        if (!Files.isRegularFile(file)) return;
+        try {
+            JsonNode root = JsonCodecs.MAPPER.readTree(file.toFile());
+            Iterator<Map.Entry<String, JsonNode>> fields = root.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                JsonNode node = field.getValue();
+                entries.put(field.getKey(), new Entry(node.path("sha256").asText(),
+                        node.hasNonNull("etag") ? node.get("etag").asText() : null,
+                        node.hasNonNull("lastModified") ? node.get("lastModified").asText() : null,
+                        node.path("validatedAt").asLong()));
+            }
+        } catch (IOException | RuntimeException e) {
+            // Index illisible : les images seront simplement retéléchargées
+            e.printStackTrace();
+            entries.clear();
+        }
+    }
+
+    /** Sauvegarde de l'index regroupée : plusieurs changements rapprochés donnent une seule écriture. */
+    private void scheduleIndexSave() {
+        if (!indexSavePending.compareAndSet(false, true)) return;
+        try {
+            ApiService.persistenceExecutor().execute(this::saveIndex);
+        } catch (RejectedExecutionException e) {
+            // Application en cours d'arrêt : la prochaine demande retentera
+            indexSavePending.set(false);
+            System.err.println("Sauvegarde de l'index des images non planifiée : " + e);
+        }
+    }
+
+    private void saveIndex() {
+        indexSavePending.set(false);
+        ObjectNode root = JsonCodecs.MAPPER.createObjectNode();
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            ObjectNode node = root.putObject(entry.getKey());
+            node.put("sha256", entry.getValue().sha256);
+            node.put("etag", entry.getValue().etag);
+            node.put("lastModified", entry.getValue().lastModified);
+            node.put("validatedAt", entry.getValue().validatedAt);
+        }
+        try {
+            Files.createDirectories(directory);
+            Path tmp = Files.createTempFile(directory, "index-", ".tmp");
+            try {
+                JsonCodecs.MAPPER.writeValue(tmp.toFile(), root);
+                moveAtomically(tmp, directory.resolve(INDEX_FILE));
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package org.example.services;
+
+import org.example.model.CartItem;
+import org.example.model.Catalog;
+import org.example.model.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Moteur de suggestions précalculé pour une version du catalogue.
+ * À la construction : tableaux d'index des produits disponibles par catégorie, et pour chaque
+ * plat une courte liste déterministe de candidats par catégorie complémentaire. Au moment de
+ * l'ajout au panier, il ne reste qu'à écarter les produits déjà présents (masque BitSet).
+ * Les associations apprises sur les commandes passées (CoOccurrenceRecommender) sont
+ * prioritaires ; les candidats précalculés servent de repli. Elles sont mises en cache par plat
+ * à côté des tables précalculées, pour la génération courante du modèle : tant que le modèle
+ * n'apprend rien, une suggestion ne prend ni le verrou de l'apprentissage ni n'alloue de résultat.
+ */
+public class SuggestionEngine {
+
+    private static final long DISH_CATEGORY = 2L;
+    // Catégories proposées après un plat : Entrée (1), Dessert (3), Boisson (4)
+    private static final long[] COMPLEMENT_CATEGORIES = {1L, 3L, 4L};
+    // Candidats mémorisés par plat et par catégorie ; au-delà, parcours du tableau de la catégorie
+    private static final int CANDIDATES_PER_CATEGORY = 8;
+    // Nombre de compléments appris consultés avant de se rabattre sur les candidats précalculés
+    private static final int LEARNED_CANDIDATES = 16;
+
+    private static volatile SuggestionEngine current;
+
+    private final Catalog catalog;
+    private final CoOccurrenceRecommender recommender;
+    // Index (dans catalog.getProducts()) des produits disponibles, par catégorie complémentaire
+    private final int[][] availableByCategory;
+    // Pour chaque produit (index dense) : candidats par catégorie complémentaire, null si ce n'est pas un plat
+    private final int[][][] candidatesByProduct;
+    // Compléments appris par plat, valables pour une génération du modèle (remplacés quand elle change)
+    private volatile LearnedComplements learned;
+
+    /** Compléments appris, par plat (index dense) puis par catégorie complémentaire ; remplis à la demande. */
+    private static final class LearnedComplements {
+        final long generation;
+        final AtomicReferenceArray<int[][]> byProduct;
+
+        LearnedComplements(long generation, int productCount) {
+            this.generation = generation;
+            this.byProduct = new AtomicReferenceArray<>(productCount);
+        }
+    }
+
+    private SuggestionEngine(Catalog catalog, CoOccurrenceRecommender recommender) {
+        this.catalog = catalog;
+        this.recommender = recommender;
+        List<Product> products = catalog.getProducts();
+
+        availableByCategory = new int[COMPLEMENT_CATEGORIES.length][];
+        for (int c = 0; c < COMPLEMENT_CATEGORIES.length; c++) {
+            List<Product> inCategory = catalog.getProductsByCategory(COMPLEMENT_CATEGORIES[c]);
+            int[] indexes = new int[inCategory.size()];
+            int count = 0;
+            for (Product product : inCategory) {
+                if (product.isAvailable()) indexes[count++] = catalog.indexOf(product.getId());
+            }
+            availableByCategory[c] = Arrays.copyOf(indexes, count);
+        }
+
+        candidatesByProduct = new int[products.size()][][];
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            if (product.getCategoryId() == null || product.getCategoryId() != DISH_CATEGORY) continue;
+            // Graine basée sur le plat : les suggestions restent constantes pour un même plat
+            Random random = new Random(Math.abs((product.getName() + product.getId()).hashCode()));
+            int[][] perCategory = new int[COMPLEMENT_CATEGORIES.length][];
+            for (int c = 0; c < COMPLEMENT_CATEGORIES.length; c++) {
+                perCategory[c] = pickDistinct(availableByCategory[c], CANDIDATES_PER_CATEGORY, random);
+            }
+            candidatesByProduct[i] = perCategory;
+        }
+    }
+
+    /** Moteur correspondant à la version du catalogue, reconstruit uniquement quand elle change. */
+    public static SuggestionEngine forCatalog(Catalog catalog) {
+        return forCatalog(catalog, CoOccurrenceRecommender.getInstance());
+    }
+
+    static SuggestionEngine forCatalog(Catalog catalog, CoOccurrenceRecommender recommender) {
+        SuggestionEngine engine = current;
+        if (engine == null || engine.catalog.getVersion() != catalog.getVersion() || engine.recommender != recommender) {
+            engine = new SuggestionEngine(catalog, recommender);
+            current = engine;
+        }
+        return engine;
+    }
+
+    public Catalog getCatalog() {
+        return catalog;
+    }
+
+    /** Masque des produits du panier, indexé comme catalog.getProducts(). */
+    public BitSet cartMask(List<CartItem> items) {
+        BitSet mask = new BitSet(catalog.getProducts().size());
+        for (CartItem item : items) {
+            int index = catalog.indexOf(item.getProduct().getId());
+            if (index >= 0) mask.set(index);
+        }
+        return mask;
+    }
+
+    /** Au plus un produit par catégorie complémentaire, absent du panier. Liste vide si ce n'est pas un plat. */
+    public List<Product> suggest(Product justAdded, BitSet inCart) {
+        int index = catalog.indexOf(justAdded.getId());
+        if (index < 0 || candidatesByProduct[index] == null) return List.of();
+
+        // Meilleur complément appris par catégorie, s'il est absent du panier ; sinon candidats précalculés
+        int[][] learnedByCategory = learnedComplements(index);
+        List<Product> suggestions = new ArrayList<>(COMPLEMENT_CATEGORIES.length);
+        int[][] perCategory = candidatesByProduct[index];
+        for (int c = 0; c < perCategory.length; c++) {
+            int chosen = firstNotIn(learnedByCategory[c], inCart);
+            if (chosen < 0) chosen = firstNotIn(perCategory[c], inCart);
+            if (chosen < 0) chosen = firstNotIn(availableByCategory[c], inCart);
+            if (chosen >= 0 && chosen != index) suggestions.add(catalog.getProducts().get(chosen));
+        }
+        return suggestions;
+    }
+
+    /**
+     * Compléments appris pour le plat d'index donné, par catégorie complémentaire et du plus fort au
+     * plus faible, limités aux produits disponibles de ce catalogue. Calculés une fois par génération.
+     */
+    private int[][] learnedComplements(int index) {
+        long generation = recommender.getGeneration();
+        LearnedComplements cache = learned;
+        if (cache == null || cache.generation != generation) {
+            cache = new LearnedComplements(generation, candidatesByProduct.length);
+            learned = cache;
+        }
+        int[][] perCategory = cache.byProduct.get(index);
+        if (perCategory != null) return perCategory;
+
+        int[] ids = recommender.topComplements(catalog.getProducts().get(index).getId(), LEARNED_CANDIDATES);
+        int[][] byCategory = new int[COMPLEMENT_CATEGORIES.length][ids.length];
+        int[] counts = new int[COMPLEMENT_CATEGORIES.length];
+        for (int productId : ids) {
+            int candidate = catalog.indexOf((long) productId);
+            if (candidate < 0) continue;
+            Product product = catalog.getProducts().get(candidate);
+            int c = categorySlot(product.getCategoryId());
+            if (c >= 0 && product.isAvailable()) byCategory[c][counts[c]++] = candidate;
+        }
+        for (int c = 0; c < byCategory.length; c++) byCategory[c] = Arrays.copyOf(byCategory[c], counts[c]);
+        // Calcul concurrent du même plat : le premier publié est gardé, les deux sont équivalents
+        return cache.byProduct.compareAndSet(index, null, byCategory) ? byCategory : cache.byProduct.get(index);
+    }
+
+    private static int categorySlot(Long categoryId) {
+        if (categoryId == null) return -1;
+        for (int c = 0; c < COMPLEMENT_CATEGORIES.length; c++) {
+            if (COMPLEMENT_CATEGORIES[c] == categoryId) return c;
+        }
+        return -1;
+    }
+
+    private static int firstNotIn(int[] candidates, BitSet inCart) {
+        for (int candidate : candidates) {
+            if (!inCart.get(candidate)) return candidate;
+        }
+        return -1;
+    }
+
+    /** Tirage sans remise de count éléments (mélange partiel de Fisher-Yates sur une copie). */
+    private static int[] pickDistinct(int[] source, int count, Random random) {
+        int[] copy = source.clone();
+        int n = Math.min(count, copy.length);
+        for (int i = 0; i < n; i++) {
+            int j = i + random.nextInt(copy.length - i);
+            int tmp = copy[i]; copy[i] = copy[j]; copy[j] = tmp;
+        }
+        return Arrays.copyOf(copy, n);
+    }
+}
@@ -0,0 +1,270 @@
+package org.example.utils;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Stock disque des déclinaisons d'images déjà décodées (pixels BGRA prémultipliés, format natif de
+ * JavaFX), projeté en mémoire avec FileChannel.map. Au démarrage, une image est recopiée du fichier
+ * projeté vers une WritableImage par PixelWriter, sans aucun décodage JPEG.
+ * Le fichier est écrit par FileChannel.write puis synchronisé sur disque avant d'être renommé.
+ * Format : en-tête "BORNEIMG", version, empreinte SHA-256 de l'index des déclinaisons, table des
+ * entrées (nom, largeur, hauteur, position), puis les pixels. Le stock est reconstruit en tâche de
+ * fond dès que l'empreinte ne correspond plus (images source modifiées).
+ */
+public class DecodedImageStore {
+    private static final DecodedImageStore INSTANCE = new DecodedImageStore(defaultLocation());
+
+    private static final byte[] MAGIC = "BORNEIMG".getBytes(StandardCharsets.US_ASCII);
+    private static final int FORMAT_VERSION = 1;
+    private static final int BYTES_PER_PIXEL = 4;
+
+    private final Path file;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    // Projection courante ; remplacée d'un bloc après reconstruction
+    private volatile Mapping mapping;
+
+    private static final class Entry {
+        final int width;
+        final int height;
+        final int offset;
+
+        Entry(int width, int height, int offset) {
+            this.width = width;
+            this.height = height;
+            this.offset = offset;
+        }
+    }
+
+    private static final class Mapping {
+        final MappedByteBuffer buffer;
+        final Map<String, Entry> entries;
+
+        Mapping(MappedByteBuffer buffer, Map<String, Entry> entries) {
+            this.buffer = buffer;
+            this.entries = entries;
+        }
+    }
+
+    DecodedImageStore(Path file) {
+        this.file = file;
+    }
+
+    public static DecodedImageStore getInstance() {
+        return INSTANCE;
+    }
+
+    /** Emplacement par défaut, surchargeable via -Dimage.store.file. */
+    public static Path defaultLocation() {
+        String configured = System.getProperty("image.store.file");
+        if (configured != null) return Paths.get(configured);
+        return Paths.get(System.getProperty("user.home"), ".borne", "image-store.bin");
+    }
+
+    /**
+     * Projette le stock s'il correspond aux déclinaisons embarquées, sinon lance sa reconstruction
+     * sur le pool de décodage. Ne bloque jamais sur un décodage.
+     */
+    public void openOrRebuild() {
+        byte[] expectedHash = indexHash();
+        if (expectedHash == null) return; // Pas de déclinaisons générées : rien à stocker
+        try {
+            mapping = open(expectedHash);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Stock d'images illisible, reconstruction : " + e);
+            mapping = null;
+        }
+        if (mapping == null && rebuilding.compareAndSet(false, true)) {
+            ImagePipeline.decodePool().execute(() -> {
+                try {
+                    rebuild(expectedHash);
+                    mapping = open(expectedHash);
+                } catch (IOException | RuntimeException e) {
+                    e.printStackTrace();
+                } finally {
+                    rebuilding.set(false);
+                }
+            });
+        }
+    }
+
+    /** Image pré-décodée pour la déclinaison "name" affichée en LxH, ou null si elle n'est pas dans le stock. */
+    public Image get(String name, double width, double height) {
+        Mapping current = mapping;
+        if (current == null) return null;
+        Entry entry = current.entries.get(key(name, (int) width, (int) height));
+        if (entry == null) return null;
+
+        ByteBuffer pixels = current.buffer.duplicate();
+        pixels.position(entry.offset);
+        pixels.limit(entry.offset + entry.width * entry.height * BYTES_PER_PIXEL);
+        WritableImage image = new WritableImage(entry.width, entry.height);
+        image.getPixelWriter().setPixels(0, 0, entry.width, entry.height,
+                PixelFormat.getByteBgraPreInstance(), pixels.slice(), entry.width * BYTES_PER_PIXEL);
+        return image;
+    }
+
+    /**
+     * En-tête lu et validé par une lecture ordinaire ; le fichier n'est projeté en mémoire qu'une fois
+     * reconnu (aucune projection laissée derrière un fichier périmé ou corrompu).
+     */
+    private Mapping open(byte[] expectedHash) throws IOException {
+        if (!Files.isRegularFile(file)) return null;
+        long size = Files.size(file);
+        Map<String, Entry> entries;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC) || in.readInt() != FORMAT_VERSION) return null;
+            byte[] hash = new byte[expectedHash.length];
+            in.readFully(hash);
+            if (!Arrays.equals(hash, expectedHash)) return null;
+
+            int count = in.readInt();
+            if (count < 0) return null;
+            entries = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                byte[] name = new byte[in.readUnsignedShort()];
+                in.readFully(name);
+                int width = in.readInt();
+                int height = in.readInt();
+                int offset = in.readInt();
+                if (width < 0 || height < 0 || offset < 0
+                        || (long) offset + (long) width * height * BYTES_PER_PIXEL > size) return null;
+                entries.put(new String(name, StandardCharsets.UTF_8), new Entry(width, height, offset));
+            }
+        } catch (EOFException e) {
+            return null; // Fichier tronqué
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // La projection reste valide après fermeture du canal
+            return new Mapping(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), entries);
+        }
+    }
+
+    /** Décode toutes les déclinaisons de l'index à leur taille d'affichage et écrit le stock de façon atomique. */
+    private void rebuild(byte[] hash) throws IOException {
+        Properties index = ImagePipeline.renditionIndex();
+        List<String> keys = new ArrayList<>();
+        List<Image> images = new ArrayList<>();
+        for (String indexKey : new TreeSet<>(index.stringPropertyNames())) {
+            int at = indexKey.lastIndexOf('@');
+            if (at < 0) continue;
+            String[] dims = indexKey.substring(at + 1).split("x");
+            int width = Integer.parseInt(dims[0]);
+            int height = Integer.parseInt(dims[1]);
+            String name = index.getProperty(indexKey);
+            URL resource = ImagePipeline.renditionResource(name);
+            if (resource == null) continue;
+            // Mêmes paramètres que ImagePipeline.load : pixels identiques à un décodage à la demande
+            Image image = new Image(resource.toExternalForm(), width, height, true, true, false);
+            if (image.isError()) continue;
+            keys.add(key(name, width, height));
+            images.add(image);
+        }
+
+        int headerSize = MAGIC.length + 4 + hash.length + 4;
+        for (String key : keys) headerSize += 2 + key.getBytes(StandardCharsets.UTF_8).length + 12;
+        long total = headerSize;
+        for (Image image : images) total += (long) pixelWidth(image) * pixelHeight(image) * BYTES_PER_PIXEL;
+        if (total > Integer.MAX_VALUE) throw new IOException("Stock d'images trop volumineux : " + total);
+
+        // Écriture ordinaire puis fsync : le renommage ne porte jamais sur un fichier encore projeté
+        ByteBuffer header = ByteBuffer.allocate(headerSize);
+        header.put(MAGIC).putInt(FORMAT_VERSION).put(hash).putInt(keys.size());
+        int offset = headerSize;
+        for (int i = 0; i < keys.size(); i++) {
+            byte[] name = keys.get(i).getBytes(StandardCharsets.UTF_8);
+            Image image = images.get(i);
+            header.putShort((short) name.length).put(name)
+                    .putInt(pixelWidth(image)).putInt(pixelHeight(image)).putInt(offset);
+            offset += pixelWidth(image) * pixelHeight(image) * BYTES_PER_PIXEL;
+        }
+        header.flip();
+
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, "image-store-", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                writeFully(channel, header);
+                ByteBuffer pixels = null;
+                for (Image image : images) {
+                    int width = pixelWidth(image);
+                    int height = pixelHeight(image);
+                    int length = width * height * BYTES_PER_PIXEL;
+                    if (pixels == null || pixels.capacity() < length) pixels = ByteBuffer.allocate(length);
+                    pixels.clear().limit(length);
+                    image.getPixelReader().getPixels(0, 0, width, height,
+                            PixelFormat.getByteBgraPreInstance(), pixels, width * BYTES_PER_PIXEL);
+                    pixels.position(0).limit(length);
+                    writeFully(channel, pixels);
+                }
+                channel.force(true);
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        System.err.println("Stock d'images pré-décodées reconstruit : " + keys.size() + " image(s), " + total + " octets");
+    }
+
+    /** Empreinte de l'index des déclinaisons (qui contient lui-même le SHA-256 de chaque image source). */
+    private static byte[] indexHash() {
+        try (InputStream in = ImagePipeline.renditionIndexStream()) {
+            if (in == null) return null;
+            return MessageDigest.getInstance("SHA-256").digest(in.readAllBytes());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) channel.write(buffer);
+    }
+
+    private static String key(String name, int width, int height) {
+        return name + "@" + width + "x" + height;
+    }
+
+    private static int pixelWidth(Image image) {
+        return (int) image.getWidth();
+    }
+
+    private static int pixelHeight(Image image) {
+        return (int) image.getHeight();
+    }
+}
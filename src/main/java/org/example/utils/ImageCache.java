@@ -0,0 +1,123 @@
+package org.example.utils;
+
+import javafx.scene.image.Image;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Cache des images décodées, partagé par tous les écrans (menu, détail, suggestions).
+ * Clé : (chemin, largeur, hauteur) demandées. Éviction LRU bornée par la taille des pixels
+ * décodés (largeur x hauteur x 4 octets), configurable via -Dimage.cache.max.bytes.
+ */
+public class ImageCache {
+    private static final ImageCache INSTANCE = new ImageCache(Long.getLong("image.cache.max.bytes", 64L * 1024 * 1024));
+
+    private final long maxBytes;
+    // Ordre d'accès : le premier élément est le moins récemment utilisé
+    private final LinkedHashMap<Key, Image> images = new LinkedHashMap<>(64, 0.75f, true);
+    private long currentBytes;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    ImageCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public static ImageCache getInstance() {
+        return INSTANCE;
+    }
+
+    /** Image en cache pour (path, width, height), ou null ; compte un succès mais jamais un échec. */
+    public synchronized Image peek(String path, double width, double height) {
+        Image cached = images.get(new Key(path, width, height));
+        if (cached != null) hitCount++;
+        return cached;
+    }
+
+    /** Image en cache pour (path, width, height), ou décodée par loader puis mémorisée. */
+    public Image get(String path, double width, double height, Supplier<Image> loader) {
+        Key key = new Key(path, width, height);
+        synchronized (this) {
+            Image cached = images.get(key);
+            if (cached != null) {
+                hitCount++;
+                return cached;
+            }
+            missCount++;
+        }
+
+        // Décodage hors verrou : deux demandes simultanées peuvent décoder la même image, la seconde est ignorée
+        Image image = loader.get();
+        if (image == null || image.isError()) return image;
+
+        synchronized (this) {
+            Image existing = images.get(key);
+            if (existing != null) return existing;
+            long size = sizeOf(image);
+            if (size > maxBytes) return image;
+            images.put(key, image);
+            currentBytes += size;
+            evictIfNeeded();
+        }
+        return image;
+    }
+
+    public synchronized void clear() {
+        images.clear();
+        currentBytes = 0;
+    }
+
+    public synchronized long getHitCount() { return hitCount; }
+    public synchronized long getMissCount() { return missCount; }
+    public synchronized long getEvictionCount() { return evictionCount; }
+    public synchronized int getSize() { return images.size(); }
+
+    /** Octets de pixels décodés actuellement retenus par le cache. */
+    public synchronized long getCurrentBytes() { return currentBytes; }
+
+    public long getMaxBytes() { return maxBytes; }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<Key, Image>> it = images.entrySet().iterator();
+        while (currentBytes > maxBytes && it.hasNext()) {
+            currentBytes -= sizeOf(it.next().getValue());
+            it.remove();
+            evictionCount++;
+        }
+    }
+
+    /** Taille décodée (ARGB, 4 octets par pixel) ; une image en cours de chargement a déjà ses dimensions finales. */
+    private static long sizeOf(Image image) {
+        return (long) Math.ceil(image.getWidth()) * (long) Math.ceil(image.getHeight()) * 4L;
+    }
+
+    private static final class Key {
+        private final String path;
+        private final double width;
+        private final double height;
+
+        Key(String path, double width, double height) {
+            this.path = path;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return path.equals(other.path) && width == other.width && height == other.height;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, width, height);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package org.example.utils;
+
+import javafx.scene.image.Image;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Décodage des images produit à la taille d'affichage, sur un pool dédié (jamais le thread JavaFX).
+ * Le JPEG est réduit pendant le décodage (requestedWidth/requestedHeight, lissage) au lieu d'être
+ * décodé en pleine résolution puis mis à l'échelle par l'ImageView. Les résultats passent par
+ * l'ImageCache ; deux demandes simultanées pour la même taille partagent le même décodage.
+ */
+public class ImagePipeline {
+    private static final int DECODE_THREADS = Integer.getInteger("image.decode.threads", 2);
+
+    private static final ExecutorService DECODE_POOL;
+    static {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(DECODE_THREADS, DECODE_THREADS, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, "image-decode-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    // Le décodage ne doit pas concurrencer le rendu de l'interface
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        DECODE_POOL = pool;
+    }
+
+    private static final Map<String, CompletableFuture<Image>> IN_FLIGHT = new ConcurrentHashMap<>();
+
+    private static final String IMAGES_DIR = "/org/example/images/";
+    private static final String RENDITIONS_DIR = IMAGES_DIR + "renditions/";
+    // Écrit par l'outil de build RenditionGenerator (src/build/java)
+    private static final String RENDITION_INDEX_FILE = "renditions.properties";
+    // Index généré au build : "image@LxH" -> nom de la déclinaison
+    private static final Properties RENDITIONS = loadRenditionIndex();
+
+    private ImagePipeline() {
+    }
+
+    /**
+     * Ressource à décoder pour une image produit affichée en LxH : la déclinaison générée au build
+     * pour cette taille si elle existe, sinon l'original, sinon (build borne sans originaux) la plus
+     * grande déclinaison disponible. Null si l'image est introuvable.
+     */
+    public static URL resolve(String imageUrl, double width, double height) {
+        if (imageUrl == null || imageUrl.isEmpty()) return null;
+        String rendition = RENDITIONS.getProperty(imageUrl + "@" + (int) width + "x" + (int) height);
+        URL resource = rendition != null ? ImagePipeline.class.getResource(RENDITIONS_DIR + rendition) : null;
+        if (resource == null) resource = ImagePipeline.class.getResource(IMAGES_DIR + imageUrl);
+        if (resource == null) resource = largestRendition(imageUrl);
+        return resource;
+    }
+
+    private static URL largestRendition(String imageUrl) {
+        String best = null;
+        long bestArea = -1;
+        String prefix = imageUrl + "@";
+        for (String key : RENDITIONS.stringPropertyNames()) {
+            if (!key.startsWith(prefix)) continue;
+            String[] dims = key.substring(prefix.length()).split("x");
+            long area = Long.parseLong(dims[0]) * Long.parseLong(dims[1]);
+            if (area > bestArea) {
+                bestArea = area;
+                best = RENDITIONS.getProperty(key);
+            }
+        }
+        return best != null ? ImagePipeline.class.getResource(RENDITIONS_DIR + best) : null;
+    }
+
+    private static Properties loadRenditionIndex() {
+        Properties index = new Properties();
+        try (InputStream in = renditionIndexStream()) {
+            if (in != null) index.load(in);
+        } catch (IOException e) {
+            // Sans index, les images d'origine sont utilisées
+            e.printStackTrace();
+        }
+        return index;
+    }
+
+    static Properties renditionIndex() {
+        return RENDITIONS;
+    }
+
+    static InputStream renditionIndexStream() {
+        return ImagePipeline.class.getResourceAsStream(RENDITIONS_DIR + RENDITION_INDEX_FILE);
+    }
+
+    static URL renditionResource(String name) {
+        return ImagePipeline.class.getResource(RENDITIONS_DIR + name);
+    }
+
+    static ExecutorService decodePool() {
+        return DECODE_POOL;
+    }
+
+    /**
+     * Image déjà disponible à cette taille, ou null (aucun décodage n'est lancé) : cache mémoire,
+     * puis stock pré-décodé projeté en mémoire (simple copie de pixels, pas de JPEG).
+     */
+    public static Image peek(URL resource, double width, double height) {
+        String path = resource.toExternalForm();
+        Image cached = ImageCache.getInstance().peek(path, width, height);
+        if (cached != null) return cached;
+        Image stored = DecodedImageStore.getInstance().get(fileName(resource), width, height);
+        return stored != null ? ImageCache.getInstance().get(path, width, height, () -> stored) : null;
+    }
+
+    /** Image décodée à la taille demandée ; la future est complétée sur un thread du pool de décodage. */
+    public static CompletableFuture<Image> load(URL resource, double width, double height) {
+        String path = resource.toExternalForm();
+        Image cached = ImageCache.getInstance().peek(path, width, height);
+        if (cached != null) return CompletableFuture.completedFuture(cached);
+
+        String key = path + '@' + width + 'x' + height;
+        CompletableFuture<Image> created = new CompletableFuture<>();
+        CompletableFuture<Image> existing = IN_FLIGHT.putIfAbsent(key, created);
+        if (existing != null) return existing;
+
+        try {
+            DECODE_POOL.execute(() -> {
+                try {
+                    // Décodage synchrone sur ce thread : le pool joue le rôle du chargement en arrière-plan
+                    Image image = ImageCache.getInstance().get(path, width, height, () -> {
+                        Image stored = DecodedImageStore.getInstance().get(fileName(resource), width, height);
+                        return stored != null ? stored : new Image(path, width, height, true, true, false);
+                    });
+                    if (image.isError()) throw new IllegalStateException("Image illisible : " + path, image.getException());
+                    created.complete(image);
+                } catch (Throwable t) {
+                    created.completeExceptionally(t);
+                } finally {
+                    IN_FLIGHT.remove(key, created);
+                }
+            });
+        } catch (RuntimeException e) {
+            IN_FLIGHT.remove(key, created);
+            created.completeExceptionally(e);
+        }
+        return created;
+    }
+
+    private static String fileName(URL resource) {
+        String path = resource.getPath();
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+}
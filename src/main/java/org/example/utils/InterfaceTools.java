@@ -1,6 +1,7 @@
 package org.example.utils;
 
 import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.geometry.Pos;
 import javafx.geometry.Rectangle2D;
 import javafx.scene.Node;
@@ -10,6 +11,7 @@ import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
+import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
@@ -18,6 +20,12 @@ import javafx.stage.Screen;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
 import javafx.util.Duration;
+import org.example.services.RemoteImageCache;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Boîte à outils pour l'interface graphique (Images, Alertes, Notifications).
@@ -33,28 +41,80 @@ public class InterfaceTools {
         return b;
     }
 
-    /** Charge une image et l'arrondit (ou affiche un carré gris si absente). */
+    /**
+     * Image produit arrondie, décodée à la taille demandée. Si elle n'est pas encore en cache,
+     * le carré gris est affiché tout de suite et remplacé dès que le décodage (en tâche de fond) aboutit.
+     * Une image absente du jar est téléchargée depuis le backend (cache disque RemoteImageCache).
+     */
     public static Node createProductImageNode(String imageUrl, double width, double height) {
-        String imagePath = "/org/example/images/" + imageUrl;
-        if (imageUrl != null && !imageUrl.isEmpty() && InterfaceTools.class.getResource(imagePath) != null) {
-            ImageView imageView = new ImageView(new Image(InterfaceTools.class.getResourceAsStream(imagePath)));
-            imageView.setFitWidth(width);
-            imageView.setFitHeight(height);
-            imageView.setPreserveRatio(true);
-
-            Rectangle clip = new Rectangle(width, height);
-            clip.setArcWidth(15);
-            clip.setArcHeight(15);
-            imageView.setClip(clip);
-            return imageView;
-        } else {
-            Rectangle imgPlace = new Rectangle(width, height, Color.web("#f1f5f9"));
-            imgPlace.setArcWidth(15);
-            imgPlace.setArcHeight(15);
-            return imgPlace;
+        if (imageUrl == null || imageUrl.isEmpty()) return createImagePlaceholder(width, height);
+
+        // Vignettes de carte : région de l'atlas partagé plutôt qu'une texture par produit
+        if (ThumbnailAtlas.ENABLED && width == ThumbnailAtlas.getInstance().getCellSize() && height == width) {
+            ImageView fromAtlas = ThumbnailAtlas.getInstance().createView(imageUrl);
+            if (fromAtlas != null) return roundImageView(fromAtlas, width, height);
+        }
+
+        // Déclinaison générée au build pour cette taille de préférence à l'original pleine résolution
+        URL resource = ImagePipeline.resolve(imageUrl, width, height);
+        if (resource == null) resource = toUrl(RemoteImageCache.getInstance().peekLocal(imageUrl));
+        if (resource != null) {
+            Image cached = ImagePipeline.peek(resource, width, height);
+            if (cached != null) return createRoundedImageView(cached, width, height);
+        }
+
+        CompletableFuture<Image> image = resource != null
+                ? ImagePipeline.load(resource, width, height)
+                : RemoteImageCache.getInstance().get(imageUrl)
+                        .thenCompose(file -> ImagePipeline.load(toUrl(file), width, height));
+
+        StackPane holder = new StackPane(createImagePlaceholder(width, height));
+        holder.setMinSize(width, height);
+        holder.setPrefSize(width, height);
+        holder.setMaxSize(width, height);
+        image.whenCompleteAsync((loaded, error) -> {
+            if (error != null) {
+                System.err.println("Image indisponible : " + imageUrl + " (" + error + ")");
+                return;
+            }
+            holder.getChildren().setAll(createRoundedImageView(loaded, width, height));
+        }, Platform::runLater);
+        return holder;
+    }
+
+    private static URL toUrl(Path file) {
+        if (file == null) return null;
+        try {
+            return file.toUri().toURL();
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException(e);
         }
     }
 
+    private static ImageView createRoundedImageView(Image image, double width, double height) {
+        return roundImageView(new ImageView(image), width, height);
+    }
+
+    private static ImageView roundImageView(ImageView imageView, double width, double height) {
+        imageView.setFitWidth(width);
+        imageView.setFitHeight(height);
+        imageView.setPreserveRatio(true);
+        imageView.setSmooth(true);
+
+        Rectangle clip = new Rectangle(width, height);
+        clip.setArcWidth(15);
+        clip.setArcHeight(15);
+        imageView.setClip(clip);
+        return imageView;
+    }
+
+    private static Rectangle createImagePlaceholder(double width, double height) {
+        Rectangle imgPlace = new Rectangle(width, height, Color.web("#f1f5f9"));
+        imgPlace.setArcWidth(15);
+        imgPlace.setArcHeight(15);
+        return imgPlace;
+    }
+
     /** Affiche une petite notification verte temporaire (Toast). */
     public static void showQuickNotification(String message) {
         Stage notifStage = new Stage();
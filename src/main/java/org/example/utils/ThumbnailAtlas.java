@@ -0,0 +1,153 @@
+package org.example.utils;
+
+import javafx.application.Platform;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Atlas des vignettes des cartes produit (140x140) : toutes les vignettes sont recopiées dans
+ * quelques grandes pages (WritableImage), et chaque carte affiche sa région via setViewport.
+ * Une page = une seule texture côté Prism, au lieu d'une texture par produit.
+ * Activé par -Dui.thumbnail.atlas=true. L'atlas est mis à jour à chaque version du catalogue :
+ * seules les images nouvelles sont copiées, les emplacements des produits retirés sont recyclés
+ * (effacés avant réemploi, pour qu'aucun pixel de l'ancienne vignette ne déborde sur la nouvelle).
+ * Toutes les méthodes s'utilisent sur le thread JavaFX.
+ */
+public class ThumbnailAtlas {
+    public static final boolean ENABLED = Boolean.getBoolean("ui.thumbnail.atlas");
+
+    private static final ThumbnailAtlas INSTANCE = new ThumbnailAtlas(140, 2048);
+
+    private final int cellSize;
+    private final int pageSize;
+    private final int cellsPerRow;
+    private final List<WritableImage> pages = new ArrayList<>();
+    private final Map<String, Slot> slots = new HashMap<>();
+    private final Set<String> loading = new HashSet<>();
+    private final Deque<Slot> freeSlots = new ArrayDeque<>();
+    // Images de la dernière version appliquée ; un décodage terminé n'est copié que si elles le contiennent
+    private Set<String> wanted = Set.of();
+    // Cellule transparente, recopiée sur un emplacement recyclé
+    private final int[] blankCell;
+    private int nextCell;
+    private long version = -1;
+
+    /** Région occupée par une vignette ; width/height réels (ratio conservé, au plus cellSize). */
+    private static final class Slot {
+        final int page;
+        final int x;
+        final int y;
+        int width;
+        int height;
+
+        Slot(int page, int x, int y) {
+            this.page = page;
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    ThumbnailAtlas(int cellSize, int pageSize) {
+        this.cellSize = cellSize;
+        this.pageSize = pageSize;
+        this.cellsPerRow = pageSize / cellSize;
+        this.blankCell = new int[cellSize * cellSize];
+    }
+
+    public static ThumbnailAtlas getInstance() {
+        return INSTANCE;
+    }
+
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    public int getPageCount() {
+        return pages.size();
+    }
+
+    /**
+     * Met l'atlas en conformité avec les images d'une version du catalogue : libère les vignettes
+     * disparues et copie (après décodage en tâche de fond) celles qui manquent. Sans effet si la
+     * version est déjà à jour.
+     */
+    public void update(long catalogVersion, Collection<String> imageUrls) {
+        if (catalogVersion == version) return;
+        version = catalogVersion;
+
+        Set<String> wanted = new HashSet<>(imageUrls);
+        wanted.remove(null);
+        wanted.remove("");
+        this.wanted = wanted;
+        slots.entrySet().removeIf(entry -> {
+            if (wanted.contains(entry.getKey())) return false;
+            freeSlots.push(entry.getValue());
+            return true;
+        });
+
+        for (String imageUrl : wanted) {
+            // Déjà en cours de décodage (lancé par une version précédente) : copié à la fin s'il est toujours voulu
+            if (slots.containsKey(imageUrl) || !loading.add(imageUrl)) continue;
+            URL resource = ImagePipeline.resolve(imageUrl, cellSize, cellSize);
+            if (resource == null) {
+                loading.remove(imageUrl);
+                continue;
+            }
+            ImagePipeline.load(resource, cellSize, cellSize).whenCompleteAsync((image, error) -> {
+                loading.remove(imageUrl);
+                // Image illisible, ou retirée par la version appliquée entre-temps (pas seulement celle
+                // qui a lancé le décodage : une version plus récente peut encore la vouloir)
+                if (error != null || !this.wanted.contains(imageUrl) || slots.containsKey(imageUrl)) return;
+                copyIntoAtlas(imageUrl, image);
+            }, Platform::runLater);
+        }
+    }
+
+    /** Vue sur la vignette dans l'atlas, ou null si elle n'y est pas (encore). */
+    public ImageView createView(String imageUrl) {
+        Slot slot = imageUrl != null ? slots.get(imageUrl) : null;
+        if (slot == null) return null;
+        ImageView view = new ImageView(pages.get(slot.page));
+        view.setViewport(new Rectangle2D(slot.x, slot.y, slot.width, slot.height));
+        return view;
+    }
+
+    private void copyIntoAtlas(String imageUrl, Image image) {
+        int width = Math.min(cellSize, (int) image.getWidth());
+        int height = Math.min(cellSize, (int) image.getHeight());
+        Slot slot = allocate();
+        slot.width = width;
+        slot.height = height;
+        pages.get(slot.page).getPixelWriter().setPixels(slot.x, slot.y, width, height, image.getPixelReader(), 0, 0);
+        slots.put(imageUrl, slot);
+    }
+
+    private Slot allocate() {
+        if (!freeSlots.isEmpty()) {
+            Slot recycled = freeSlots.pop();
+            pages.get(recycled.page).getPixelWriter().setPixels(recycled.x, recycled.y, cellSize, cellSize,
+                    PixelFormat.getIntArgbInstance(), blankCell, 0, cellSize);
+            return recycled;
+        }
+        int cellsPerPage = cellsPerRow * cellsPerRow;
+        int page = nextCell / cellsPerPage;
+        int cell = nextCell % cellsPerPage;
+        nextCell++;
+        if (page == pages.size()) pages.add(new WritableImage(pageSize, pageSize));
+        return new Slot(page, (cell % cellsPerRow) * cellSize, (cell / cellsPerRow) * cellSize);
+    }
+}
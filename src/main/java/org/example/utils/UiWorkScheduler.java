@@ -0,0 +1,123 @@
+package org.example.utils;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.Node;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Découpe la construction de noeuds en petites tâches exécutées sur le thread JavaFX avec un
+ * budget de temps par pulse (-Dui.frame.budget.ms, 4 ms par défaut) : une longue boucle de
+ * création ne bloque plus une image entière. Chaque lot est rattaché à un noeud propriétaire ;
+ * il est annulé dès que ce noeud quitte la scène (écran quitté par l'utilisateur). Un noeud pas
+ * encore rattaché n'annule rien : le contenu d'un ScrollPane n'entre dans la scène qu'à la passe
+ * CSS, qui suit les AnimationTimer dans le même pulse.
+ * Toutes les méthodes s'utilisent sur le thread JavaFX.
+ */
+public class UiWorkScheduler {
+    private static final UiWorkScheduler INSTANCE =
+            new UiWorkScheduler(TimeUnit.MILLISECONDS.toNanos(Long.getLong("ui.frame.budget.ms", 4)));
+
+    private final long budgetNanos;
+    private final Deque<Batch> batches = new ArrayDeque<>();
+    private AnimationTimer timer;
+    private boolean timerRunning;
+
+    /** Lot de tâches en attente ; annulable par l'appelant. */
+    public static final class Batch {
+        private final Node owner;
+        private final Iterator<? extends Runnable> tasks;
+        private final Runnable onCancelled;
+        private boolean attached;
+        private boolean cancelled;
+        private boolean done;
+
+        private Batch(Node owner, Iterator<? extends Runnable> tasks, Runnable onCancelled) {
+            this.owner = owner;
+            this.tasks = tasks;
+            this.onCancelled = onCancelled;
+        }
+
+        /** Abandonne les tâches restantes ; onCancelled est appelé au prochain pulse. */
+        public void cancel() {
+            if (!done) cancelled = true;
+        }
+
+        public boolean isCancelled() { return cancelled; }
+        public boolean isDone() { return done; }
+    }
+
+    UiWorkScheduler(long budgetNanos) {
+        this.budgetNanos = budgetNanos;
+    }
+
+    public static UiWorkScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Planifie les tâches à partir du prochain pulse, dans l'ordre, après les lots déjà en attente.
+     * onCancelled (facultatif) est appelé si le lot est annulé avant d'être terminé.
+     */
+    public Batch submit(Node owner, Iterable<? extends Runnable> tasks, Runnable onCancelled) {
+        Batch batch = new Batch(owner, tasks.iterator(), onCancelled);
+        if (!batch.tasks.hasNext()) {
+            batch.done = true;
+            return batch;
+        }
+        batches.addLast(batch);
+        if (!timerRunning) {
+            timerRunning = true;
+            startTimer();
+        }
+        return batch;
+    }
+
+    void startTimer() {
+        if (timer == null) {
+            timer = new AnimationTimer() {
+                @Override
+                public void handle(long now) {
+                    runPulse();
+                }
+            };
+        }
+        timer.start();
+    }
+
+    void stopTimer() {
+        timer.stop();
+    }
+
+    void runPulse() {
+        long deadline = System.nanoTime() + budgetNanos;
+        // Au moins une tâche par pulse, même si elle dépasse le budget, pour garantir la progression
+        do {
+            Batch batch = batches.peekFirst();
+            if (batch == null) break;
+            if (!batch.cancelled && batch.owner != null) {
+                // Seul un détachement après rattachement signifie que l'écran a été quitté
+                if (batch.owner.getScene() != null) batch.attached = true;
+                else if (batch.attached) batch.cancelled = true;
+            }
+            if (batch.cancelled) {
+                batches.pollFirst();
+                if (batch.onCancelled != null) batch.onCancelled.run();
+                continue;
+            }
+            batch.tasks.next().run();
+            if (!batch.tasks.hasNext()) {
+                batch.done = true;
+                batches.pollFirst();
+            }
+        } while (System.nanoTime() < deadline);
+
+        if (batches.isEmpty()) {
+            stopTimer();
+            timerRunning = false;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.example.controller;
+
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.control.ListCell;
+import javafx.scene.layout.StackPane;
+import javafx.scene.text.Text;
+import javafx.stage.Stage;
+import org.example.model.Product;
+import org.example.services.CartService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Grille du menu sur un très grand catalogue, dans une vraie scène JavaFX (Monocle headless,
+ * configuré par surefire) : délai avant la première rangée et nombre de cellules réellement créées.
+ */
+class MenuDisplayControllerTest {
+    private static final int PRODUCTS = 5_000;
+    private static Stage stage;
+
+    @BeforeAll
+    static void startToolkit() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        try {
+            Platform.startup(started::countDown);
+        } catch (IllegalStateException alreadyStarted) {
+            started.countDown();
+        }
+        assumeTrue(started.await(10, TimeUnit.SECONDS), "toolkit JavaFX indisponible");
+        // La mise en page du texte dépend de pango (libpangoft2) : absente de certains environnements headless
+        CompletableFuture<Boolean> textLayout = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                textLayout.complete(new Text("Menu").getLayoutBounds().getWidth() > 0);
+            } catch (Throwable e) {
+                textLayout.complete(false);
+            }
+        });
+        assumeTrue(textLayout.completeOnTimeout(false, 10, TimeUnit.SECONDS).get(), "mise en page du texte indisponible");
+    }
+
+    @AfterAll
+    static void closeStage() {
+        if (stage != null) Platform.runLater(stage::close);
+    }
+
+    @Test
+    void largeMenuCreatesOnlyVisibleRows() throws Exception {
+        List<Product> products = new ArrayList<>(PRODUCTS);
+        for (int i = 0; i < PRODUCTS; i++) {
+            products.add(new Product((long) i, "Produit " + i, 5 + i % 20, "Description " + i, 2L,
+                    null, false, true, 10));
+        }
+        ResourceBundle bundle = ResourceBundle.getBundle("org.example.strings", Locale.FRENCH);
+
+        CompletableFuture<long[]> measured = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                MenuDisplayController controller = new MenuDisplayController(CartService.getInstance(), null, null);
+                long start = System.nanoTime();
+                Node grid = controller.createProductGrid(products, bundle, () -> { });
+                StackPane root = new StackPane(grid);
+                stage = new Stage();
+                stage.setScene(new Scene(root, 1024, 768));
+                stage.show();
+                root.applyCss();
+                root.layout();
+                long firstRow = System.nanoTime() - start;
+                long cells = root.lookupAll(".list-cell").stream()
+                        .filter(node -> node instanceof ListCell && ((ListCell<?>) node).getItem() != null)
+                        .count();
+                measured.complete(new long[]{firstRow, cells});
+            } catch (Throwable e) {
+                measured.completeExceptionally(e);
+            }
+        });
+        long[] result = measured.get(30, TimeUnit.SECONDS);
+        System.out.printf("grille de %,d produits : première rangée en %,.1f ms, %d rangées créées%n",
+                PRODUCTS, result[0] / 1e6, result[1]);
+
+        // 768 px de haut, rangées de 220 px : quelques rangées visibles, jamais 2 500
+        assertTrue(result[1] > 0 && result[1] <= 8, "rangées créées : " + result[1]);
+        assertTrue(result[0] < TimeUnit.SECONDS.toNanos(2), "première rangée en " + result[0] / 1_000_000 + " ms");
+    }
+}
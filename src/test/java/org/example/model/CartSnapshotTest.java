@@ -0,0 +1,65 @@
+package org.example.model;
+
+import org.example.services.CartService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/** Un instantané ne change plus, quelles que soient les modifications ultérieures du panier. */
+class CartSnapshotTest {
+    private final CartService cart = CartService.getInstance();
+
+    @BeforeEach
+    void emptyCart() {
+        cart.clear();
+    }
+
+    @Test
+    void snapshotIsUnaffectedByLaterChanges() {
+        Product burger = new Product();
+        burger.setId(1L);
+        burger.setPrice(8.90);
+        List<String> options = new ArrayList<>(List.of("sans oignon"));
+        cart.addProduct(burger, 1, options);
+
+        CartSnapshot before = cart.getSnapshot();
+        options.add("bacon");
+        cart.updateQuantity(0, 3);
+        cart.addProduct(burger, 1, List.of());
+
+        assertEquals(1, before.getLineCount());
+        assertEquals(1, before.getItems().get(0).getQuantity());
+        assertEquals(List.of("sans oignon"), before.getItems().get(0).getOptions());
+        assertEquals(890, before.getTotalCents());
+        assertThrows(UnsupportedOperationException.class, () -> before.getItems().get(0).getOptions().add("bacon"));
+        assertEquals(4 * 890, cart.getTotalCents());
+    }
+
+    @Test
+    void sameSnapshotWhileTheCartIsUnchanged() {
+        Product tea = new Product();
+        tea.setId(2L);
+        tea.setPrice(3.20);
+        assertSame(cart.getSnapshot(), cart.getSnapshot());
+
+        cart.addProduct(tea, 1, List.of());
+        CartSnapshot first = cart.getSnapshot();
+        assertSame(first, cart.getSnapshot());
+        // Aucune modification effective : ni nouvelle version, ni nouvel instantané
+        cart.updateQuantity(0, 1);
+        assertSame(first, cart.getSnapshot());
+
+        cart.updateQuantity(0, 2);
+        CartSnapshot second = cart.getSnapshot();
+        assertNotSame(first, second);
+        assertSame(second, cart.getSnapshot());
+        assertEquals(first.getVersion() + 1, second.getVersion());
+    }
+}
@@ -0,0 +1,116 @@
+package org.example.services;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.example.model.Category;
+import org.example.model.Product;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.BindException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Ouverture du menu (GET /categories puis GET /products) contre un backend bouchon local sur le
+ * port de l'API : client HTTP créé et fermé à chaque requête (ancien ApiService) contre le client
+ * partagé avec pool de connexions keep-alive. Hors de la suite par défaut : mvn test -Pbenchmark.
+ */
+class ApiServiceBenchmark {
+    private static final int PRODUCTS = 200;
+    private static final int WARMUP = 300;
+    private static final int RUNS = 2_000;
+
+    private static HttpServer server;
+
+    @BeforeAll
+    static void startStub() throws IOException {
+        // Sans TCP_NODELAY, en-têtes et corps partent en deux segments et l'ACK retardé ajoute ~40 ms par réponse
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        try {
+            server = HttpServer.create(new InetSocketAddress("localhost", 7000), 64);
+        } catch (BindException e) {
+            assumeTrue(false, "port 7000 déjà utilisé (backend local lancé ?)");
+        }
+        List<Category> categories = new ArrayList<>();
+        for (long id = 1; id <= 4; id++) categories.add(new Category(id, "Catégorie " + id));
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            products.add(new Product((long) i, "Produit " + i, 5 + i % 20, "Description " + i,
+                    (long) (1 + i % 4), "produit" + i + ".jpg", false, true, 20));
+        }
+        byte[] categoriesJson = JsonCodecs.MAPPER.writeValueAsBytes(categories);
+        byte[] productsJson = JsonCodecs.MAPPER.writeValueAsBytes(products);
+        server.createContext("/api/categories", exchange -> reply(exchange, categoriesJson));
+        server.createContext("/api/products", exchange -> reply(exchange, productsJson));
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @AfterAll
+    static void stopStub() {
+        if (server != null) server.stop(0);
+    }
+
+    private static void reply(HttpExchange exchange, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private interface MenuOpen {
+        int run() throws IOException;
+    }
+
+    @Test
+    void menuOpenLatency() throws IOException {
+        ApiService apiService = new ApiService();
+        measure("client neuf par requête (avant)", () -> {
+            List<Category> categories = getWithNewClient("/categories", JsonCodecs.CATEGORY_LIST_READER);
+            List<Product> products = getWithNewClient("/products", JsonCodecs.PRODUCT_LIST_READER);
+            return categories.size() + products.size();
+        });
+        measure("client partagé avec pool (après)", () -> {
+            List<Category> categories = apiService.getCategories();
+            List<Product> products = apiService.<List<Product>>getConditional("/products", null, null, JsonCodecs.PRODUCT_LIST_READER).getValue();
+            return categories.size() + products.size();
+        });
+    }
+
+    /** Comportement d'origine : un client HttpClients.createDefault() ouvert puis fermé par requête. */
+    private static <T> T getWithNewClient(String path, ObjectReader reader) throws IOException {
+        try (CloseableHttpClient client = HttpClients.createDefault();
+             CloseableHttpResponse response = client.execute(new HttpGet("http://localhost:7000/api" + path))) {
+            return reader.readValue(response.getEntity().getContent());
+        }
+    }
+
+    private static void measure(String label, MenuOpen menuOpen) throws IOException {
+        for (int i = 0; i < WARMUP; i++) assertEquals(4 + PRODUCTS, menuOpen.run());
+        long[] samples = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            assertEquals(4 + PRODUCTS, menuOpen.run());
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        System.out.printf("%-36s médiane %,8.0f us   p95 %,8.0f us   p99 %,8.0f us%n", label,
+                samples[RUNS / 2] / 1e3, samples[RUNS * 95 / 100] / 1e3, samples[RUNS * 99 / 100] / 1e3);
+    }
+}
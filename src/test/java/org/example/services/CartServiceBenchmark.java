@@ -0,0 +1,100 @@
+package org.example.services;
+
+import org.example.model.CartSnapshot;
+import org.example.model.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Coût des opérations sur un gros panier (lignes indexées, agrégats, instantané, livraison aux abonnés).
+ * Hors de la suite par défaut : mvn test -Pbenchmark.
+ */
+class CartServiceBenchmark {
+    private static final int LINES = 10_000;
+    private static final int OPERATIONS = 200_000;
+    private static final int WARMUP_ROUNDS = 3;
+
+    private final CartService cart = CartService.getInstance();
+    private final Product[] products = new Product[LINES];
+    private final AtomicLong delivered = new AtomicLong();
+    // Livraison sur un thread à part, comme Platform::runLater pour l'interface
+    private final ExecutorService uiThread = Executors.newSingleThreadExecutor();
+    private final CartService.CartListener listener = (changes, snapshot) -> delivered.addAndGet(changes.size());
+
+    @BeforeEach
+    void setUp() {
+        cart.clear();
+        for (int i = 0; i < LINES; i++) {
+            products[i] = new Product();
+            products[i].setId((long) i);
+            products[i].setPrice((100 + i % 997) / 100.0);
+        }
+        cart.addListener(listener, uiThread);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        cart.removeListener(listener);
+        uiThread.shutdown();
+        uiThread.awaitTermination(10, TimeUnit.SECONDS);
+        cart.clear();
+    }
+
+    @Test
+    void largeCart() {
+        for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+            boolean report = round == WARMUP_ROUNDS;
+            cart.clear();
+
+            long start = System.nanoTime();
+            for (int i = 0; i < LINES; i++) cart.addProduct(products[i], 1, List.of("option" + i % 3));
+            report(report, "ajout de lignes", start, LINES);
+
+            start = System.nanoTime();
+            for (int i = 0; i < OPERATIONS; i++) cart.addProduct(products[i % LINES], 1, List.of("option" + i % LINES % 3));
+            report(report, "fusion dans une ligne existante", start, OPERATIONS);
+
+            start = System.nanoTime();
+            for (int i = 0; i < OPERATIONS; i++) cart.updateQuantity(i % LINES, 1 + i % 5);
+            report(report, "changement de quantité", start, OPERATIONS);
+
+            start = System.nanoTime();
+            long cents = 0;
+            for (int i = 0; i < OPERATIONS; i++) cents += cart.getTotalCents() + cart.getTotalProductCount();
+            report(report, "lecture des agrégats", start, OPERATIONS);
+
+            start = System.nanoTime();
+            int copies = 1_000;
+            CartSnapshot snapshot = null;
+            for (int i = 0; i < copies; i++) {
+                cart.updateQuantity(i, 7 + i % 2);
+                snapshot = cart.getSnapshot();
+            }
+            report(report, "modification + instantané (" + LINES + " lignes)", start, copies);
+
+            start = System.nanoTime();
+            for (int i = LINES - 1; i >= LINES / 2; i--) cart.removeItem(i);
+            report(report, "suppression en fin de panier", start, LINES / 2);
+
+            assertEquals(LINES - LINES / 2, cart.getItemCount());
+            assertEquals(LINES, snapshot.getLineCount());
+            if (cents == 42) System.out.print("");
+        }
+        System.out.println("événements livrés : " + delivered.get());
+    }
+
+    private static void report(boolean report, String label, long start, int operations) {
+        if (!report) return;
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-45s %,10d ops  %,10.0f ns/op%n", label, operations, (double) elapsed / operations);
+    }
+}
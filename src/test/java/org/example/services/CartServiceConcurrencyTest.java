@@ -0,0 +1,173 @@
+package org.example.services;
+
+import org.example.model.CartItem;
+import org.example.model.CartSnapshot;
+import org.example.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Ajouts, changements de quantité et suppressions simultanés depuis plusieurs threads. */
+class CartServiceConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int OPERATIONS_PER_THREAD = 20_000;
+    private static final int PRODUCTS = 50;
+
+    private final CartService cart = CartService.getInstance();
+    private final Product[] products = new Product[PRODUCTS];
+
+    @BeforeEach
+    void setUp() {
+        cart.clear();
+        for (int i = 0; i < PRODUCTS; i++) {
+            products[i] = new Product();
+            products[i].setId((long) i);
+            products[i].setPrice((100 + i * 7) / 100.0);
+        }
+    }
+
+    @Test
+    void concurrentAddsAreNeverLost() throws Exception {
+        runConcurrently(random -> {
+            // Même ligne quel que soit l'ordre de sélection des options
+            List<String> options = random.nextBoolean() ? List.of("frites", "sauce") : List.of("sauce", "frites");
+            cart.addProduct(products[random.nextInt(PRODUCTS)], 1, options);
+        });
+
+        assertEquals(THREADS * OPERATIONS_PER_THREAD, cart.getTotalProductCount());
+        assertEquals(PRODUCTS, cart.getItemCount());
+        assertInvariants();
+    }
+
+    @Test
+    void mixedOperationsKeepIndexAndTotalsConsistent() throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<String> snapshotErrors = new ArrayList<>();
+        // Lecteur concurrent : chaque instantané doit être cohérent avec ses propres lignes
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                CartSnapshot snapshot = cart.getSnapshot();
+                long cents = 0;
+                int quantity = 0;
+                for (CartItem item : snapshot.getItems()) {
+                    cents += Math.round(item.getProduct().getPrice() * 100) * item.getQuantity();
+                    quantity += item.getQuantity();
+                }
+                if (cents != snapshot.getTotalCents() || quantity != snapshot.getTotalProductCount()) {
+                    snapshotErrors.add("version " + snapshot.getVersion());
+                    return;
+                }
+            }
+        });
+        reader.start();
+
+        try {
+            runConcurrently(random -> {
+                int kind = random.nextInt(10);
+                if (kind < 6) {
+                    List<String> options = random.nextBoolean() ? List.of() : List.of("option" + random.nextInt(3));
+                    cart.addProduct(products[random.nextInt(PRODUCTS)], 1 + random.nextInt(3), options);
+                } else if (kind < 9) {
+                    // Index éventuellement périmé : le service doit l'ignorer ou l'appliquer, jamais se corrompre
+                    cart.updateQuantity(random.nextInt(PRODUCTS * 4), 1 + random.nextInt(5));
+                } else {
+                    cart.removeItem(random.nextInt(PRODUCTS * 4));
+                }
+            });
+        } finally {
+            running.set(false);
+            reader.join();
+        }
+
+        assertEquals(List.of(), snapshotErrors);
+        assertInvariants();
+    }
+
+    @Test
+    void blockedListenerExecutorDoesNotHoldTheCart() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // Exécuteur qui bloque pendant la remise de la livraison (file pleine, thread saturé...)
+        Executor blocking = task -> {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        CartService.CartListener listener = (changes, snapshot) -> { };
+        cart.addListener(listener, blocking);
+        Thread writer = new Thread(() -> cart.addProduct(products[0], 1, List.of()));
+        try {
+            writer.start();
+            assertTrue(entered.await(10, TimeUnit.SECONDS));
+            // Le verrou du panier doit être libre pendant que l'exécuteur bloque
+            FutureTask<Integer> read = new FutureTask<>(cart::getTotalProductCount);
+            new Thread(read).start();
+            assertEquals(1, read.get(10, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            writer.join();
+            cart.removeListener(listener);
+        }
+    }
+
+    private interface Operation {
+        void run(Random random);
+    }
+
+    private void runConcurrently(Operation operation) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                Random random = new Random(t);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < OPERATIONS_PER_THREAD; i++) operation.run(random);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) future.get(60, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void assertInvariants() {
+        assertTrue(cart.isIndexConsistent(), "index des lignes incohérent");
+
+        long cents = 0;
+        int quantity = 0;
+        Set<String> keys = new HashSet<>();
+        for (CartItem item : cart.getItems()) {
+            cents += Math.round(item.getProduct().getPrice() * 100) * item.getQuantity();
+            quantity += item.getQuantity();
+            List<String> options = new ArrayList<>(item.getOptions());
+            options.sort(null);
+            assertTrue(keys.add(item.getProduct().getId() + options.toString()), "ligne en double : " + item.getProduct().getId());
+        }
+        assertEquals(cents, cart.getTotalCents());
+        assertEquals(quantity, cart.getTotalProductCount());
+        assertEquals(cart.getItemCount(), cart.getSnapshot().getLineCount());
+    }
+}
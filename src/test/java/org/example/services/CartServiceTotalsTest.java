@@ -0,0 +1,78 @@
+package org.example.services;
+
+import org.example.model.CartItem;
+import org.example.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** Les agrégats tenus à jour (centimes, quantités) doivent toujours égaler un recalcul complet. */
+class CartServiceTotalsTest {
+    private final CartService cart = CartService.getInstance();
+
+    @BeforeEach
+    void emptyCart() {
+        cart.clear();
+    }
+
+    private static Product product(long id, double price) {
+        Product product = new Product();
+        product.setId(id);
+        product.setPrice(price);
+        return product;
+    }
+
+    private void assertMatchesRecompute() {
+        long cents = 0;
+        int quantity = 0;
+        for (CartItem item : cart.getItems()) {
+            cents += Math.round(item.getProduct().getPrice() * 100) * item.getQuantity();
+            quantity += item.getQuantity();
+        }
+        assertEquals(cents, cart.getTotalCents());
+        assertEquals(quantity, cart.getTotalProductCount());
+        assertEquals(cart.getTotalCents(), cart.getSnapshot().getTotalCents());
+    }
+
+    @Test
+    void priceChangeBetweenTwoAddsOfTheSameProduct() {
+        // Nouvelle version du catalogue : même produit, autre prix ; la ligne garde son prix d'origine
+        cart.addProduct(product(1, 4.50), 1, List.of());
+        cart.addProduct(product(1, 5.10), 2, List.of());
+        assertEquals(1, cart.getItemCount());
+        assertMatchesRecompute();
+        assertEquals(1350, cart.getTotalCents());
+
+        cart.updateQuantity(0, 1);
+        assertMatchesRecompute();
+        cart.removeItem(0);
+        assertMatchesRecompute();
+        assertEquals(0, cart.getTotalCents());
+    }
+
+    @Test
+    void randomOperationsKeepAggregatesExact() {
+        Random random = new Random(7);
+        for (int run = 0; run < 200; run++) {
+            cart.clear();
+            for (int op = 0; op < 200; op++) {
+                int kind = random.nextInt(10);
+                if (kind < 5) {
+                    // Prix tirés à chaque ajout : simule des mises à jour du catalogue entre deux ajouts
+                    Product product = product(random.nextInt(40), random.nextInt(3000) / 100.0);
+                    List<String> options = random.nextBoolean() ? List.of() : List.of("option" + random.nextInt(2));
+                    cart.addProduct(product, 1 + random.nextInt(3), options);
+                } else if (kind < 8) {
+                    cart.updateQuantity(random.nextInt(Math.max(1, cart.getItemCount())), 1 + random.nextInt(5));
+                } else {
+                    cart.removeItem(random.nextInt(Math.max(1, cart.getItemCount())));
+                }
+                assertMatchesRecompute();
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.example.services;
+
+import org.example.model.Order;
+import org.example.model.OrderItem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Rejeu d'un million de commandes synthétiques (popularité des produits très inégale, 90 jours
+ * d'historique) : débit d'apprentissage avec élagage, coût des requêtes, sauvegarde et relecture.
+ * Hors de la suite par défaut : mvn test -Pbenchmark.
+ */
+class CoOccurrenceRecommenderBenchmark {
+    private static final int ORDERS = 1_000_000;
+    private static final int PRODUCTS = 3_000;
+    private static final int MAX_CELLS = 200_000;
+    private static final long HALF_LIFE_MS = 14L * 24 * 3600 * 1000;
+    private static final long HISTORY_MS = 90L * 24 * 3600 * 1000;
+
+    @Test
+    void replayMillionOrders(@TempDir Path dir) {
+        Order[] orders = syntheticOrders(new Random(42));
+        long startMs = System.currentTimeMillis() - HISTORY_MS;
+        Path file = dir.resolve("reco-model.bin");
+
+        CoOccurrenceRecommender recommender = new CoOccurrenceRecommender(HALF_LIFE_MS, MAX_CELLS, file);
+        long start = System.nanoTime();
+        for (int i = 0; i < ORDERS; i++) {
+            recommender.recordOrder(orders[i], startMs + HISTORY_MS * i / ORDERS);
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("apprentissage   %,d commandes en %,d ms (%,.0f commandes/s), %,d paires%n",
+                ORDERS, elapsed / 1_000_000, ORDERS / (elapsed / 1e9), recommender.getCellCount());
+        assertTrue(recommender.getCellCount() <= MAX_CELLS);
+        assertTrue(recommender.getCellCount() >= MAX_CELLS * 3 / 4 - PRODUCTS);
+
+        int queries = 100_000;
+        int found = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < queries; i++) found += recommender.topComplements(i % PRODUCTS, 3).length;
+        elapsed = System.nanoTime() - start;
+        System.out.printf("topComplements  %,d requêtes, %,.0f ns/requête, %,d résultats%n",
+                queries, (double) elapsed / queries, found);
+
+        // Sauvegarde à la fermeture (commande apprise en tâche de fond, puis écriture regroupée)
+        start = System.nanoTime();
+        recommender.recordOrder(orders[0]);
+        recommender.close();
+        elapsed = System.nanoTime() - start;
+        System.out.printf("sauvegarde      %,d ms, %,d octets%n", elapsed / 1_000_000, file.toFile().length());
+        assertTrue(Files.isRegularFile(file));
+
+        start = System.nanoTime();
+        CoOccurrenceRecommender reloaded = new CoOccurrenceRecommender(HALF_LIFE_MS, MAX_CELLS, file);
+        reloaded.close();
+        elapsed = System.nanoTime() - start;
+        System.out.printf("relecture       %,d ms%n", elapsed / 1_000_000);
+        assertEquals(recommender.getCellCount(), reloaded.getCellCount());
+    }
+
+    /** Commandes de 1 à 6 produits ; les premiers produits du catalogue sont les plus commandés. */
+    private static Order[] syntheticOrders(Random random) {
+        Order[] orders = new Order[ORDERS];
+        for (int i = 0; i < ORDERS; i++) {
+            int size = 1 + random.nextInt(6);
+            List<OrderItem> items = new ArrayList<>(size);
+            for (int j = 0; j < size; j++) {
+                // Loi de puissance approchée : u² concentre les tirages sur les petits identifiants
+                double u = random.nextDouble();
+                items.add(new OrderItem((int) (u * u * PRODUCTS), 1, 5.0, ""));
+            }
+            orders[i] = new Order("client", 5.0 * size, items);
+        }
+        return orders;
+    }
+}
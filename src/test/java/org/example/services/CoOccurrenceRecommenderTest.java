@@ -0,0 +1,96 @@
+package org.example.services;
+
+import org.example.model.Order;
+import org.example.model.OrderItem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CoOccurrenceRecommenderTest {
+    private static final long HALF_LIFE_MS = 14L * 24 * 3600 * 1000;
+
+    private static Order order(int... productIds) {
+        List<OrderItem> items = new ArrayList<>();
+        for (int id : productIds) items.add(new OrderItem(id, 1, 5.0, ""));
+        return new Order("client", 5.0 * productIds.length, items);
+    }
+
+    @Test
+    void learnedPairsSurviveARestart(@TempDir Path dir) {
+        Path file = dir.resolve("reco-model.bin");
+        CoOccurrenceRecommender before = new CoOccurrenceRecommender(HALF_LIFE_MS, 1_000, file);
+        for (int i = 0; i < 5; i++) before.recordOrder(order(1, 2));
+        before.recordOrder(order(1, 3));
+        before.close();
+        assertEquals(true, Files.isRegularFile(file));
+        assertArrayEquals(new int[]{2, 3}, before.topComplements(1, 5));
+
+        CoOccurrenceRecommender after = new CoOccurrenceRecommender(HALF_LIFE_MS, 1_000, file);
+        after.close();
+        assertEquals(before.getCellCount(), after.getCellCount());
+        assertArrayEquals(new int[]{2, 3}, after.topComplements(1, 5));
+        assertArrayEquals(new int[]{1}, after.topComplements(3, 5));
+    }
+
+    @Test
+    void corruptModelIsIgnored(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("reco-model.bin");
+        Files.write(file, new byte[]{'B', 'O', 'R', 'N'});
+        CoOccurrenceRecommender recommender = new CoOccurrenceRecommender(HALF_LIFE_MS, 1_000, file);
+        recommender.recordOrder(order(4, 5));
+        recommender.close();
+        assertArrayEquals(new int[]{5}, recommender.topComplements(4, 5));
+    }
+
+    @Test
+    void pruningKeepsTheTargetWhenScoresTie() {
+        CoOccurrenceRecommender recommender = new CoOccurrenceRecommender(HALF_LIFE_MS, 100);
+        long now = System.currentTimeMillis();
+        // Paires distinctes commandées au même instant : toutes ont exactement le même poids
+        for (int i = 0; i < 51; i++) recommender.recordOrder(order(i, 1_000 + i), now);
+        recommender.close();
+        assertEquals(75, recommender.getCellCount());
+    }
+
+    @Test
+    void pruningDropsTheWeakestPairsFirst() {
+        CoOccurrenceRecommender recommender = new CoOccurrenceRecommender(HALF_LIFE_MS, 100);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 10; i++) recommender.recordOrder(order(1, 2), now);
+        for (int i = 0; i < 50; i++) recommender.recordOrder(order(10 + i, 1_000 + i), now);
+        recommender.close();
+        assertTrue(recommender.getCellCount() <= 100);
+        assertArrayEquals(new int[]{2}, recommender.topComplements(1, 5));
+    }
+
+    @Test
+    void oversizedModelIsRejectedBeforeAllocating(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("reco-model.bin");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            out.write("BORNRECO".getBytes(StandardCharsets.US_ASCII));
+            out.writeInt(1);
+            out.writeLong(System.currentTimeMillis());
+            out.writeInt(1);
+            out.writeInt(7);
+            // Ligne annoncée à Integer.MAX_VALUE paires : ne doit jamais être allouée
+            out.writeInt(Integer.MAX_VALUE);
+            out.writeInt(8);
+            out.writeFloat(1f);
+        }
+        CoOccurrenceRecommender recommender = new CoOccurrenceRecommender(HALF_LIFE_MS, 1_000, file);
+        recommender.recordOrder(order(4, 5));
+        recommender.close();
+        assertEquals(2, recommender.getCellCount());
+        assertArrayEquals(new int[0], recommender.topComplements(7, 5));
+    }
+}
@@ -0,0 +1,84 @@
+package org.example.services;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Lecture d'un catalogue de 1 000 et 10 000 produits : ancien appel (ObjectMapper et TypeReference
+ * neufs à chaque fois), lecteur préconstruit, et lecture en flux (délai avant le premier produit).
+ * Temps et octets alloués par lecture. Hors de la suite par défaut : mvn test -Pbenchmark.
+ */
+class JsonCodecsBenchmark {
+    private static final int WARMUP = 30;
+    private static final int RUNS = 30;
+
+    private interface Parse {
+        int run(byte[] json) throws IOException;
+    }
+
+    @Test
+    void parseCatalog() throws IOException {
+        for (int size : new int[]{1_000, 10_000}) {
+            byte[] json = catalogJson(size);
+            System.out.printf("--- %,d produits (%,d octets)%n", size, json.length);
+            measure("ObjectMapper + TypeReference par appel", json, size, bytes -> {
+                List<Product> products = new ObjectMapper().readValue(bytes, new TypeReference<List<Product>>(){});
+                return products.size();
+            });
+            measure("PRODUCT_LIST_READER", json, size, bytes -> {
+                List<Product> products = JsonCodecs.PRODUCT_LIST_READER.readValue(bytes);
+                return products.size();
+            });
+            measure("streamProducts", json, size, bytes -> {
+                List<Product> products = new ArrayList<>();
+                return JsonCodecs.streamProducts(new ByteArrayInputStream(bytes), products::add);
+            });
+
+            // Premier produit disponible : en flux, dès la fin de son objet JSON
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i < WARMUP + RUNS; i++) {
+                long start = System.nanoTime();
+                long[] first = {0};
+                JsonCodecs.streamProducts(new ByteArrayInputStream(json), product -> {
+                    if (first[0] == 0) first[0] = System.nanoTime() - start;
+                });
+                if (i >= WARMUP) best = Math.min(best, first[0]);
+            }
+            System.out.printf("%-42s %,10.1f us%n", "premier produit (flux)", best / 1e3);
+        }
+    }
+
+    private static void measure(String label, byte[] json, int expected, Parse parse) throws IOException {
+        for (int i = 0; i < WARMUP; i++) assertEquals(expected, parse.run(json));
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            assertEquals(expected, parse.run(json));
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        long allocated = (threads.getThreadAllocatedBytes(thread) - allocatedBefore) / RUNS;
+        System.out.printf("%-42s %,10.1f us  %,12d octets alloués%n", label, best / 1e3, allocated);
+    }
+
+    private static byte[] catalogJson(int size) throws IOException {
+        List<Product> products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            products.add(new Product((long) i, "Produit " + i, 5 + i % 20, "Description du produit numéro " + i,
+                    (long) (1 + i % 4), "produit" + i + ".jpg", i % 7 == 0, i % 11 != 0, 50 + i % 30));
+        }
+        return JsonCodecs.MAPPER.writeValueAsBytes(products);
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.services;
+
+import org.example.model.Catalog;
+import org.example.model.Order;
+import org.example.model.OrderItem;
+import org.example.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Coût d'une suggestion (ajout d'un plat au panier), modèle au repos puis pendant un apprentissage
+ * continu sur un autre thread ; comparé à l'appel direct de topComplements, que le moteur met en cache.
+ * Hors de la suite par défaut : mvn test -Pbenchmark.
+ */
+class SuggestionEngineBenchmark {
+    private static final long HALF_LIFE_MS = 14L * 24 * 3600 * 1000;
+    private static final int PER_CATEGORY = 100;
+    private static final int CALLS = 2_000_000;
+
+    @Test
+    void suggest() throws InterruptedException {
+        Catalog catalog = SuggestionEngineTest.catalog(PER_CATEGORY);
+        CoOccurrenceRecommender recommender = new CoOccurrenceRecommender(HALF_LIFE_MS, 200_000);
+        Random random = new Random(7);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 200_000; i++) recommender.recordOrder(randomOrder(random), now);
+        SuggestionEngine engine = SuggestionEngine.forCatalog(catalog, recommender);
+        List<Product> dishes = catalog.getProductsByCategory(2L);
+        BitSet cart = new BitSet();
+
+        for (int round = 0; round < 3; round++) {
+            measure("suggest (modèle au repos)", () -> engine.suggest(dishes.get(random.nextInt(PER_CATEGORY)), cart).size());
+            measure("topComplements direct (au repos)", () -> recommender.topComplements(dishes.get(random.nextInt(PER_CATEGORY)).getId(), 16).length);
+        }
+
+        // Apprentissage continu : rafales de 1 000 commandes toutes les 10 ms, bien au-delà du trafic d'une borne
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread learner = new Thread(() -> {
+            Random orders = new Random(11);
+            while (running.get()) {
+                for (int i = 0; i < 1_000; i++) recommender.recordOrder(randomOrder(orders), System.currentTimeMillis());
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        learner.start();
+        try {
+            measure("suggest (apprentissage en cours)", () -> engine.suggest(dishes.get(random.nextInt(PER_CATEGORY)), cart).size());
+            measure("topComplements direct (apprentissage)", () -> recommender.topComplements(dishes.get(random.nextInt(PER_CATEGORY)).getId(), 16).length);
+        } finally {
+            running.set(false);
+            learner.join();
+            recommender.close();
+        }
+    }
+
+    private interface Call {
+        int run();
+    }
+
+    private static void measure(String label, Call call) {
+        long results = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < CALLS; i++) results += call.run();
+        long elapsed = System.nanoTime() - start;
+        assertTrue(results > 0);
+        System.out.printf("%-40s %,10.0f ns/appel%n", label, (double) elapsed / CALLS);
+    }
+
+    /** Un plat (catégorie 2) et deux ou trois compléments des autres catégories. */
+    private static Order randomOrder(Random random) {
+        List<OrderItem> items = new ArrayList<>();
+        items.add(new OrderItem(PER_CATEGORY + 1 + random.nextInt(PER_CATEGORY), 1, 5.0, ""));
+        int extras = 2 + random.nextInt(2);
+        for (int i = 0; i < extras; i++) {
+            int category = random.nextBoolean() ? 0 : 2 + random.nextInt(2);
+            items.add(new OrderItem(category * PER_CATEGORY + 1 + random.nextInt(PER_CATEGORY), 1, 5.0, ""));
+        }
+        return new Order("client", 5.0 * items.size(), items);
+    }
+}
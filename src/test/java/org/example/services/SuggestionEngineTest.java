@@ -0,0 +1,67 @@
+package org.example.services;
+
+import org.example.model.Catalog;
+import org.example.model.Order;
+import org.example.model.OrderItem;
+import org.example.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SuggestionEngineTest {
+    private static final long HALF_LIFE_MS = 14L * 24 * 3600 * 1000;
+
+    static Catalog catalog(int perCategory) {
+        List<Product> products = new ArrayList<>();
+        long id = 1;
+        for (long category = 1; category <= 4; category++) {
+            for (int i = 0; i < perCategory; i++) {
+                Product product = new Product();
+                product.setId(id);
+                product.setName("produit " + id);
+                product.setCategoryId(category);
+                product.setAvailable(true);
+                products.add(product);
+                id++;
+            }
+        }
+        return new Catalog(1, List.of(), products);
+    }
+
+    private static Order order(long... productIds) {
+        List<OrderItem> items = new ArrayList<>();
+        for (long id : productIds) items.add(new OrderItem((int) id, 1, 5.0, ""));
+        return new Order("client", 5.0 * productIds.length, items);
+    }
+
+    @Test
+    void learnedComplementsAreRefreshedWhenTheModelLearns() {
+        Catalog catalog = catalog(10);
+        CoOccurrenceRecommender recommender = new CoOccurrenceRecommender(HALF_LIFE_MS, 1_000);
+        recommender.close();
+        SuggestionEngine engine = SuggestionEngine.forCatalog(catalog, recommender);
+        Product dish = catalog.getProduct(11L);
+        BitSet emptyCart = new BitSet();
+
+        List<Product> before = engine.suggest(dish, emptyCart);
+        assertEquals(3, before.size());
+
+        // Dessert 25 appris avec ce plat : il passe devant le candidat précalculé
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 3; i++) recommender.recordOrder(order(11, 25), now);
+        assertSame(engine, SuggestionEngine.forCatalog(catalog, recommender));
+        List<Product> after = engine.suggest(dish, emptyCart);
+        assertTrue(after.contains(catalog.getProduct(25L)), "complément appris absent : " + after);
+
+        // Déjà dans le panier : repli sur les candidats précalculés
+        BitSet cart = new BitSet();
+        cart.set(catalog.indexOf(25L));
+        assertTrue(!engine.suggest(dish, cart).contains(catalog.getProduct(25L)));
+    }
+}
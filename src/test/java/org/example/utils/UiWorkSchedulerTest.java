@@ -0,0 +1,70 @@
+package org.example.utils;
+
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.TilePane;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UiWorkSchedulerTest {
+
+    /** Pulses pilotés par le test : pas de toolkit JavaFX, donc pas d'AnimationTimer. */
+    private static final class ManualScheduler extends UiWorkScheduler {
+        ManualScheduler() {
+            super(0);
+        }
+
+        @Override
+        void startTimer() {
+        }
+
+        @Override
+        void stopTimer() {
+        }
+    }
+
+    private static List<Runnable> addCards(TilePane grid, int count) {
+        List<Runnable> tasks = new ArrayList<>();
+        for (int i = 0; i < count; i++) tasks.add(() -> grid.getChildren().add(new Pane()));
+        return tasks;
+    }
+
+    @Test
+    void ownerNotYetInSceneStillReceivesEveryCard() {
+        // Cas du TilePane enveloppé dans un ScrollPane : pas de scène avant la première passe CSS
+        ManualScheduler scheduler = new ManualScheduler();
+        TilePane grid = new TilePane();
+        grid.getChildren().addAll(new Pane(), new Pane());
+        AtomicInteger incomplete = new AtomicInteger();
+
+        UiWorkScheduler.Batch batch = scheduler.submit(grid, addCards(grid, 28), incomplete::incrementAndGet);
+        for (int pulse = 0; pulse < 100 && !batch.isDone(); pulse++) scheduler.runPulse();
+
+        assertTrue(batch.isDone());
+        assertEquals(30, grid.getChildren().size());
+        assertEquals(0, incomplete.get());
+    }
+
+    @Test
+    void cancelledBatchStopsAndReportsIncomplete() {
+        ManualScheduler scheduler = new ManualScheduler();
+        TilePane grid = new TilePane();
+        AtomicInteger incomplete = new AtomicInteger();
+
+        UiWorkScheduler.Batch batch = scheduler.submit(grid, addCards(grid, 10), incomplete::incrementAndGet);
+        scheduler.runPulse();
+        scheduler.runPulse();
+        batch.cancel();
+        scheduler.runPulse();
+        scheduler.runPulse();
+
+        assertTrue(batch.isCancelled());
+        assertEquals(2, grid.getChildren().size());
+        assertEquals(1, incomplete.get());
+    }
+}